@@ -0,0 +1,78 @@
+package com.heycm.configuration;
+
+import com.heycm.utils.RedisPubSub;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Redis 发布订阅配置
+ */
+@Component
+@ConfigurationProperties(prefix = "redis.pubsub")
+public class RedisPubSubProperties {
+
+    /**
+     * 监听线程池核心线程数
+     */
+    private int corePoolSize = 2;
+
+    /**
+     * 监听线程池最大线程数
+     */
+    private int maxPoolSize = 8;
+
+    /**
+     * 监听线程池任务队列长度
+     */
+    private int queueCapacity = 256;
+
+    /**
+     * 每个监听者的消息缓冲长度
+     */
+    private int mailboxCapacity = 1024;
+
+    /**
+     * 监听者缓冲满时的处理策略
+     */
+    private RedisPubSub.OverflowPolicy overflowPolicy = RedisPubSub.OverflowPolicy.DROP_OLDEST;
+
+    public int getCorePoolSize() {
+        return corePoolSize;
+    }
+
+    public void setCorePoolSize(int corePoolSize) {
+        this.corePoolSize = corePoolSize;
+    }
+
+    public int getMaxPoolSize() {
+        return maxPoolSize;
+    }
+
+    public void setMaxPoolSize(int maxPoolSize) {
+        this.maxPoolSize = maxPoolSize;
+    }
+
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    public void setQueueCapacity(int queueCapacity) {
+        this.queueCapacity = queueCapacity;
+    }
+
+    public int getMailboxCapacity() {
+        return mailboxCapacity;
+    }
+
+    public void setMailboxCapacity(int mailboxCapacity) {
+        this.mailboxCapacity = mailboxCapacity;
+    }
+
+    public RedisPubSub.OverflowPolicy getOverflowPolicy() {
+        return overflowPolicy;
+    }
+
+    public void setOverflowPolicy(RedisPubSub.OverflowPolicy overflowPolicy) {
+        this.overflowPolicy = overflowPolicy;
+    }
+}
@@ -0,0 +1,162 @@
+package com.heycm.configuration;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.data.redis.RedisProperties;
+import org.springframework.context.ApplicationContext;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Redis 启动预热
+ * <p>
+ * 在所有单例初始化完成后、内嵌Web容器开始监听端口之前执行，
+ * 因此端口对外可用时连接已建立(含AUTH/SELECT)、脚本已加载、序列化器已预热。
+ */
+@Component
+public class RedisWarmUp implements SmartInitializingSingleton {
+
+    private static final Logger log = LoggerFactory.getLogger(RedisWarmUp.class);
+
+    @Autowired
+    private RedisTemplate<String, Object> redisTemplate;
+
+    @Autowired
+    private RedisConnectionFactory factory;
+
+    @Autowired
+    private RedisWarmUpProperties properties;
+
+    @Autowired
+    private RedisProperties redisProperties;
+
+    @Autowired
+    private ApplicationContext applicationContext;
+
+    private volatile boolean ready = false;
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        if (!properties.isEnabled()) {
+            ready = true;
+            return;
+        }
+        long start = System.currentTimeMillis();
+        try {
+            warmUpSerializers();
+            warmUpConnections();
+            int scripts = loadScripts();
+            log.info("Redis warm-up finished in {} ms, {} script(s) loaded",
+                    System.currentTimeMillis() - start, scripts);
+        } catch (RuntimeException e) {
+            if (properties.isFailFast()) {
+                throw e;
+            }
+            log.warn("Redis warm-up failed, continue startup", e);
+        }
+        ready = true;
+    }
+
+    /**
+     * 预热是否已完成(失败且未配置fail-fast时也视为完成)
+     * @return 完成 true
+     */
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * 对key/value/hash序列化器做一次完整的序列化与反序列化，触发Jackson内部缓存构建
+     */
+    @SuppressWarnings("unchecked")
+    private void warmUpSerializers() {
+        Map<String, Object> sample = new HashMap<>();
+        sample.put("string", "warm-up");
+        sample.put("long", 1L);
+        sample.put("double", 1.0D);
+        sample.put("list", new ArrayList<>(Arrays.asList("a", "b")));
+        sample.put("set", new LinkedHashSet<>(Collections.singletonList("a")));
+        roundTrip((RedisSerializer<Object>) redisTemplate.getKeySerializer(), "warm-up");
+        roundTrip((RedisSerializer<Object>) redisTemplate.getValueSerializer(), sample);
+        roundTrip((RedisSerializer<Object>) redisTemplate.getHashValueSerializer(), sample);
+    }
+
+    private void roundTrip(RedisSerializer<Object> serializer, Object value) {
+        if (serializer != null) {
+            serializer.deserialize(serializer.serialize(value));
+        }
+    }
+
+    /**
+     * 预先建立共享连接，并从连接池中同时借出多个独占连接后再统一归还
+     */
+    private void warmUpConnections() {
+        // 共享连接(Lettuce默认)通过模板建立
+        redisTemplate.execute((RedisCallback<String>) RedisConnection::ping);
+        int count = connectionCount();
+        List<RedisConnection> connections = new ArrayList<>();
+        try {
+            for (int i = 0; i < count; i++) {
+                RedisConnection connection = factory.getConnection();
+                connections.add(connection);
+                // 普通命令走共享连接，MULTI/DISCARD才会从池中借出独占连接(与事务使用的连接相同)
+                connection.multi();
+                connection.discard();
+            }
+        } finally {
+            for (RedisConnection connection : connections) {
+                connection.close();
+            }
+        }
+    }
+
+    /**
+     * 同时借出的连接数不能超过连接池上限，否则max-wait为-1时启动会一直阻塞
+     * @return 实际预热的独占连接数
+     */
+    private int connectionCount() {
+        int count = Math.max(properties.getConnections(), 0);
+        RedisProperties.Pool pool = redisProperties.getLettuce().getPool();
+        if (pool == null || pool.getMaxActive() < 0 || count <= pool.getMaxActive()) {
+            return count;
+        }
+        log.warn("redis.warm-up.connections={} exceeds spring.redis.lettuce.pool.max-active={}, use {} instead",
+                count, pool.getMaxActive(), pool.getMaxActive());
+        return pool.getMaxActive();
+    }
+
+    /**
+     * 将容器中所有RedisScript通过SCRIPT LOAD预加载到服务端
+     * @return 加载的脚本数
+     */
+    @SuppressWarnings("rawtypes")
+    private int loadScripts() {
+        Map<String, RedisScript> scripts = applicationContext.getBeansOfType(RedisScript.class);
+        if (scripts.isEmpty()) {
+            return 0;
+        }
+        redisTemplate.execute((RedisCallback<Object>) connection -> {
+            for (RedisScript script : scripts.values()) {
+                connection.scriptingCommands().scriptLoad(script.getScriptAsString().getBytes(StandardCharsets.UTF_8));
+            }
+            return null;
+        });
+        return scripts.size();
+    }
+}
@@ -0,0 +1,51 @@
+package com.heycm.configuration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Redis 启动预热配置
+ */
+@Component
+@ConfigurationProperties(prefix = "redis.warm-up")
+public class RedisWarmUpProperties {
+
+    /**
+     * 是否开启预热
+     */
+    private boolean enabled = true;
+
+    /**
+     * 预热失败时是否中断启动，false 则仅打印日志继续启动
+     */
+    private boolean failFast = false;
+
+    /**
+     * 预先从连接池借出并归还的独占连接数(事务使用)，超过 spring.redis.lettuce.pool.max-active 时按max-active处理
+     */
+    private int connections = 1;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public boolean isFailFast() {
+        return failFast;
+    }
+
+    public void setFailFast(boolean failFast) {
+        this.failFast = failFast;
+    }
+
+    public int getConnections() {
+        return connections;
+    }
+
+    public void setConnections(int connections) {
+        this.connections = connections;
+    }
+}
@@ -0,0 +1,68 @@
+package com.heycm.utils;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Redis 值的按类型解码
+ * <p>
+ * 与redisTemplate的value序列化器共用同一个ObjectMapper，直接把原始字节解码为目标类型，
+ * 每个目标类型的ObjectReader只构建一次并缓存。
+ */
+public class RedisCodec {
+
+    private final ObjectMapper objectMapper;
+
+    private final Map<JavaType, ObjectReader> readers = new ConcurrentHashMap<>();
+
+    public RedisCodec(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    public ObjectMapper getObjectMapper() {
+        return objectMapper;
+    }
+
+    public JavaType type(Class<?> type) {
+        return objectMapper.getTypeFactory().constructType(type);
+    }
+
+    public JavaType type(TypeReference<?> type) {
+        return objectMapper.getTypeFactory().constructType(type);
+    }
+
+    /**
+     * 解码为指定类型
+     * @param bytes 原始字节，null或空返回null
+     * @param type 目标类型
+     * @return 值
+     */
+    public <T> T decode(byte[] bytes, JavaType type) {
+        if (bytes == null || bytes.length == 0) {
+            return null;
+        }
+        try {
+            return reader(type).readValue(bytes);
+        } catch (Exception e) {
+            throw new SerializationException("Could not read JSON as " + type + ": " + e.getMessage(), e);
+        }
+    }
+
+    public <T> T decode(byte[] bytes, Class<T> type) {
+        return decode(bytes, type(type));
+    }
+
+    public <T> T decode(byte[] bytes, TypeReference<T> type) {
+        return decode(bytes, type(type));
+    }
+
+    private ObjectReader reader(JavaType type) {
+        return readers.computeIfAbsent(type, objectMapper::readerFor);
+    }
+}
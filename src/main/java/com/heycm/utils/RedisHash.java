@@ -0,0 +1,83 @@
+package com.heycm.utils;
+
+import com.fasterxml.jackson.databind.JavaType;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 按键前缀划分的类型化hash，所有项的值为同一类型，通过 {@link RedisUtil#hash(String, Class)} 创建
+ * @param <V> 项值类型
+ */
+public class RedisHash<V> {
+
+    private final RedisUtil redisUtil;
+
+    private final String prefix;
+
+    private final JavaType type;
+
+    RedisHash(RedisUtil redisUtil, String prefix, JavaType type) {
+        this.redisUtil = redisUtil;
+        this.prefix = prefix;
+        this.type = type;
+    }
+
+    /**
+     * @param id 键后缀
+     * @return 完整的键
+     */
+    public String key(Object id){
+        return prefix + id;
+    }
+
+    /**
+     * 获取项，直接解码为V
+     * @param id 键后缀
+     * @param item 项
+     * @return 值
+     */
+    public V get(Object id, String item){
+        return redisUtil.hGetAs(key(id), item, type);
+    }
+
+    /**
+     * 获取所有项
+     * @param id 键后缀
+     * @return 项 -> 值
+     */
+    public Map<String, V> getAll(Object id){
+        return redisUtil.hGetAllAs(key(id), type);
+    }
+
+    /**
+     * 放入项
+     * @param id 键后缀
+     * @param item 项
+     * @param value 值
+     * @return 成功 true 失败 false
+     */
+    public Boolean put(Object id, String item, V value){
+        return redisUtil.hSet(key(id), item, value);
+    }
+
+    /**
+     * 放入多个项
+     * @param id 键后缀
+     * @param map 项 -> 值
+     * @return 成功 true 失败 false
+     */
+    public Boolean putAll(Object id, Map<String, ? extends V> map){
+        return redisUtil.hmSet(key(id), new HashMap<>(map));
+    }
+
+    /**
+     * 删除项
+     * @param id 键后缀
+     * @param items 项，可以多个
+     * @return 删除数量
+     */
+    public Long del(Object id, String... items){
+        return redisUtil.hDel(key(id), (Object[]) items);
+    }
+}
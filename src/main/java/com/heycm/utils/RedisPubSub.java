@@ -0,0 +1,367 @@
+package com.heycm.utils;
+
+import com.heycm.configuration.RedisPubSubProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.PatternTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+import org.springframework.data.redis.serializer.StringRedisSerializer;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * Redis 发布订阅工具类
+ * <p>
+ * 发布使用redisTemplate的value序列化器；订阅基于RedisMessageListenerContainer，
+ * 每个监听者拥有独立的有界缓冲，并在有界线程池上串行消费，保证单个监听者内的消息顺序。
+ */
+@Component
+public class RedisPubSub implements InitializingBean, DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(RedisPubSub.class);
+
+    /**
+     * 单次调度最多连续处理的消息数，避免单个监听者长期占用线程
+     */
+    private static final int DRAIN_BATCH = 64;
+
+    private static final StringRedisSerializer CHANNEL_SERIALIZER = StringRedisSerializer.UTF_8;
+
+    @Autowired
+    private RedisTemplate<String, Object> redisTemplate;
+
+    @Autowired
+    private RedisCodec redisCodec;
+
+    @Autowired
+    private RedisMessageListenerContainer container;
+
+    @Autowired
+    private RedisPubSubProperties properties;
+
+    /**
+     * 监听者线程池，由本类创建与关闭，不注册为bean，避免顶替Spring Boot默认的applicationTaskExecutor
+     */
+    private ThreadPoolTaskExecutor executor;
+
+    /**
+     * 监听者缓冲满时的处理策略
+     */
+    public enum OverflowPolicy {
+        /**
+         * 丢弃最新到达的消息
+         */
+        DROP_NEWEST,
+        /**
+         * 丢弃缓冲中最早的消息
+         */
+        DROP_OLDEST
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(properties.getCorePoolSize());
+        executor.setMaxPoolSize(properties.getMaxPoolSize());
+        executor.setQueueCapacity(properties.getQueueCapacity());
+        executor.setThreadNamePrefix("redis-listener-");
+        // 使用默认的AbortPolicy，饱和时由Mailbox计入丢弃数，绝不在订阅I/O线程上执行监听者
+        executor.initialize();
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdown();
+    }
+
+    // ================= Publish =================
+
+    /**
+     * Publish 发布消息
+     * @param channel 频道
+     * @param message 消息
+     * @return 成功 true 失败 false
+     */
+    public Boolean publish(String channel, Object message){
+        try {
+            redisTemplate.convertAndSend(channel, message);
+            return true;
+        } catch (Exception e) {
+            e.printStackTrace();
+            return false;
+        }
+    }
+
+    /**
+     * Publish 通过pipeline批量发布消息到同一频道
+     * @param channel 频道
+     * @param messages 消息
+     * @return 成功 每条消息的接收者数量 失败 null
+     */
+    public List<Object> publishBatch(String channel, Collection<?> messages){
+        return publishBatch(Collections.singletonMap(channel, messages));
+    }
+
+    /**
+     * Publish 通过pipeline批量发布消息到多个频道
+     * @param messages 频道 -> 消息
+     * @return 成功 每条消息的接收者数量 失败 null
+     */
+    @SuppressWarnings("unchecked")
+    public List<Object> publishBatch(Map<String, ? extends Collection<?>> messages){
+        try {
+            RedisSerializer<Object> valueSerializer = (RedisSerializer<Object>) redisTemplate.getValueSerializer();
+            return redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                for (Map.Entry<String, ? extends Collection<?>> entry : messages.entrySet()) {
+                    byte[] rawChannel = CHANNEL_SERIALIZER.serialize(entry.getKey());
+                    for (Object message : entry.getValue()) {
+                        connection.publish(rawChannel, valueSerializer.serialize(message));
+                    }
+                }
+                return null;
+            });
+        } catch (Exception e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    // ================= Subscribe =================
+
+    /**
+     * Subscribe 按模式订阅，使用默认的缓冲长度与溢出策略
+     * @param pattern 频道模式，如 order.*
+     * @param type 消息类型，无法解码为该类型的消息会被丢弃
+     * @param listener 监听者(频道, 消息)
+     * @return 订阅句柄
+     */
+    public <T> Subscription subscribe(String pattern, Class<T> type, BiConsumer<String, T> listener){
+        return subscribe(pattern, type, listener, properties.getMailboxCapacity(), properties.getOverflowPolicy());
+    }
+
+    /**
+     * Subscribe 按模式订阅，只关心消息内容
+     * @param pattern 频道模式
+     * @param type 消息类型
+     * @param listener 监听者
+     * @return 订阅句柄
+     */
+    public <T> Subscription subscribe(String pattern, Class<T> type, Consumer<T> listener){
+        return subscribe(pattern, type, (channel, message) -> listener.accept(message));
+    }
+
+    /**
+     * Subscribe 按模式订阅
+     * @param pattern 频道模式
+     * @param type 消息类型
+     * @param listener 监听者(频道, 消息)
+     * @param capacity 缓冲长度
+     * @param policy 缓冲满时的处理策略
+     * @return 订阅句柄
+     */
+    public <T> Subscription subscribe(String pattern, Class<T> type, BiConsumer<String, T> listener,
+                                      int capacity, OverflowPolicy policy){
+        Mailbox<T> mailbox = new Mailbox<>(redisCodec, executor, type, listener, capacity, policy);
+        PatternTopic topic = new PatternTopic(pattern);
+        container.addMessageListener(mailbox, topic);
+        return new Subscription(mailbox, topic);
+    }
+
+    /**
+     * 订阅句柄
+     */
+    public class Subscription {
+
+        private final Mailbox<?> mailbox;
+
+        private final PatternTopic topic;
+
+        private Subscription(Mailbox<?> mailbox, PatternTopic topic) {
+            this.mailbox = mailbox;
+            this.topic = topic;
+        }
+
+        /**
+         * 取消订阅，缓冲中未处理的消息会被丢弃，返回后监听者不会再被调用
+         */
+        public void unsubscribe(){
+            container.removeMessageListener(mailbox, topic);
+            mailbox.close();
+        }
+
+        /**
+         * @return 因缓冲满或无法解码被丢弃的消息数
+         */
+        public long getDropped(){
+            return mailbox.getDropped();
+        }
+
+        /**
+         * @return 缓冲中待处理的消息数
+         */
+        public int getPending(){
+            return mailbox.getPending();
+        }
+    }
+
+    /**
+     * 单个监听者的有界缓冲，同一时刻最多只有一个任务在消费，保证顺序
+     * <p>
+     * onMessage运行在订阅连接的I/O线程上，只做入队，从不阻塞，也不执行监听者代码；
+     * 解码与监听者回调都在线程池中完成。线程池拒绝时，缓冲中的消息计入丢弃数。
+     */
+    static class Mailbox<T> implements MessageListener {
+
+        private final RedisCodec redisCodec;
+
+        private final Executor executor;
+
+        private final Class<T> type;
+
+        private final BiConsumer<String, T> listener;
+
+        private final BlockingQueue<Message> queue;
+
+        private final OverflowPolicy policy;
+
+        private final AtomicBoolean scheduled = new AtomicBoolean(false);
+
+        private final AtomicLong dropped = new AtomicLong();
+
+        private volatile boolean closed;
+
+        Mailbox(RedisCodec redisCodec, Executor executor, Class<T> type, BiConsumer<String, T> listener,
+                int capacity, OverflowPolicy policy) {
+            this.redisCodec = redisCodec;
+            this.executor = executor;
+            this.type = type;
+            this.listener = listener;
+            this.queue = new ArrayBlockingQueue<>(capacity);
+            this.policy = policy;
+        }
+
+        @Override
+        public void onMessage(Message message, byte[] pattern) {
+            if (closed) {
+                return;
+            }
+            if (offer(message)) {
+                schedule();
+            } else {
+                dropped.incrementAndGet();
+            }
+        }
+
+        long getDropped() {
+            return dropped.get();
+        }
+
+        int getPending() {
+            return queue.size();
+        }
+
+        /**
+         * 关闭缓冲：丢弃待处理的消息，并等待正在执行的监听者回调结束，
+         * 返回后监听者不会再被调用(在监听者回调中调用时不等待自身)
+         */
+        void close() {
+            closed = true;
+            queue.clear();
+            synchronized (this) {
+                // 与deliver中的回调互斥，确保进行中的回调已结束
+            }
+        }
+
+        private boolean offer(Message message) {
+            if (policy == OverflowPolicy.DROP_OLDEST) {
+                while (!queue.offer(message)) {
+                    if (queue.poll() != null) {
+                        dropped.incrementAndGet();
+                    }
+                }
+                return true;
+            }
+            return queue.offer(message);
+        }
+
+        private void schedule() {
+            if (!scheduled.compareAndSet(false, true)) {
+                return;
+            }
+            try {
+                executor.execute(this::drain);
+            } catch (RejectedExecutionException e) {
+                // 线程池饱和时不在I/O线程上执行监听者，丢弃缓冲中的消息
+                List<Message> rejected = new ArrayList<>();
+                queue.drainTo(rejected);
+                dropped.addAndGet(rejected.size());
+                scheduled.set(false);
+                log.warn("Redis listener executor saturated, dropped {} message(s)", rejected.size());
+            }
+        }
+
+        private void drain() {
+            try {
+                List<Message> batch = new ArrayList<>(DRAIN_BATCH);
+                queue.drainTo(batch, DRAIN_BATCH);
+                for (Message message : batch) {
+                    deliver(message);
+                }
+            } finally {
+                scheduled.set(false);
+                // 处理期间有新消息到达时重新调度
+                if (!queue.isEmpty()) {
+                    schedule();
+                }
+            }
+        }
+
+        private void deliver(Message message) {
+            if (closed) {
+                return;
+            }
+            String channel = CHANNEL_SERIALIZER.deserialize(message.getChannel());
+            T body;
+            try {
+                body = redisCodec.decode(message.getBody(), type);
+            } catch (SerializationException e) {
+                dropped.incrementAndGet();
+                log.warn("Drop message on {}: not a {}", channel, type.getName(), e);
+                return;
+            }
+            synchronized (this) {
+                if (closed) {
+                    return;
+                }
+                try {
+                    listener.accept(channel, body);
+                } catch (Exception e) {
+                    log.error("Redis listener failed on channel {}", channel, e);
+                }
+            }
+        }
+    }
+}
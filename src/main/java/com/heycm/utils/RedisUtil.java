@@ -1,14 +1,40 @@
 package com.heycm.utils;
 
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JavaType;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.geo.Circle;
+import org.springframework.data.geo.Distance;
+import org.springframework.data.geo.GeoResults;
+import org.springframework.data.geo.Metric;
+import org.springframework.data.geo.Metrics;
+import org.springframework.data.geo.Point;
+import org.springframework.data.redis.connection.RedisGeoCommands.GeoLocation;
+import org.springframework.data.redis.connection.RedisGeoCommands.GeoRadiusCommandArgs;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisOperations;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.serializer.RedisSerializer;
 import org.springframework.stereotype.Component;
 import org.springframework.util.CollectionUtils;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Function;
 
 /**
  * Redis工具类
@@ -19,9 +45,28 @@ public class RedisUtil {
 
     private static final TimeUnit TIME_UNIT = TimeUnit.MINUTES;
 
+    /**
+     * 乐观事务默认最大尝试次数
+     */
+    private static final int TX_MAX_ATTEMPTS = 5;
+
+    /**
+     * 乐观事务重试退避基数/上限(毫秒)
+     */
+    private static final long TX_BACKOFF_BASE = 5;
+    private static final long TX_BACKOFF_MAX = 200;
+
+    /**
+     * hash 乐观锁默认版本号字段
+     */
+    private static final String VERSION_FIELD = "version";
+
     @Autowired
     private RedisTemplate<String, Object> redisTemplate;
 
+    @Autowired
+    private RedisCodec redisCodec;
+
     // ================= Comm =================
     /**
      * Comm 设置过期时间
@@ -540,14 +585,568 @@ public class RedisUtil {
             return null;
         }
     }
-}
 
+    // ================= Typed =================
+
+    /**
+     * Typed 普通缓存获取，直接解码为指定类型
+     * @param key 键
+     * @param type 值类型
+     * @return 值
+     */
+    public <T> T get(String key, Class<T> type){
+        return getAs(key, redisCodec.type(type));
+    }
+
+    /**
+     * Typed 普通缓存获取，直接解码为指定泛型类型，如 List&lt;User&gt;
+     * @param key 键
+     * @param type 值类型
+     * @return 值
+     */
+    public <T> T get(String key, TypeReference<T> type){
+        return getAs(key, redisCodec.type(type));
+    }
+
+    /**
+     * Typed 批量获取
+     * @param keys 键
+     * @param type 值类型
+     * @return 与keys顺序一致的值，不存在的键对应null
+     */
+    public <T> List<T> mGet(Collection<String> keys, Class<T> type){
+        JavaType javaType = redisCodec.type(type);
+        byte[][] rawKeys = keys.stream().map(this::rawKey).toArray(byte[][]::new);
+        List<byte[]> raw = redisTemplate.execute((RedisCallback<List<byte[]>>) connection -> connection.mGet(rawKeys));
+        return decodeList(raw, javaType);
+    }
+
+    /**
+     * Typed 获取hash中的项
+     * @param key 键
+     * @param item 项
+     * @param type 值类型
+     * @return 值
+     */
+    public <T> T hGet(String key, String item, Class<T> type){
+        return hGetAs(key, item, redisCodec.type(type));
+    }
+
+    /**
+     * Typed 获取hash所有项，值统一解码为指定类型
+     * @param key 键
+     * @param type 值类型
+     * @return 项 -> 值
+     */
+    public <V> Map<String, V> hGetAll(String key, Class<V> type){
+        return hGetAllAs(key, redisCodec.type(type));
+    }
+
+    /**
+     * Typed 获取list指定区间[start, end]的元素
+     * @param key 键
+     * @param start 起始索引
+     * @param end 结束索引
+     * @param type 元素类型
+     * @return 值
+     */
+    public <T> List<T> lRange(String key, long start, long end, Class<T> type){
+        return lRangeAs(key, start, end, redisCodec.type(type));
+    }
+
+    /**
+     * Typed 获取list指定区间[start, end]的元素，元素为泛型类型
+     * @param key 键
+     * @param start 起始索引
+     * @param end 结束索引
+     * @param type 元素类型
+     * @return 值
+     */
+    public <T> List<T> lRange(String key, long start, long end, TypeReference<T> type){
+        return lRangeAs(key, start, end, redisCodec.type(type));
+    }
+
+    /**
+     * Typed 获取list所有元素
+     * @param key 键
+     * @param type 元素类型
+     * @return 值
+     */
+    public <T> List<T> lRange(String key, TypeReference<T> type){
+        return lRange(key, 0, -1, type);
+    }
+
+    /**
+     * Typed 获取Set所有值
+     * @param key 键
+     * @param type 元素类型
+     * @return 值
+     */
+    public <T> Set<T> sMembers(String key, Class<T> type){
+        JavaType javaType = redisCodec.type(type);
+        byte[] rawKey = rawKey(key);
+        Set<byte[]> raw = redisTemplate.execute((RedisCallback<Set<byte[]>>) connection -> connection.sMembers(rawKey));
+        if (raw == null) {
+            return null;
+        }
+        Set<T> values = new LinkedHashSet<>(raw.size());
+        for (byte[] bytes : raw) {
+            values.add(redisCodec.decode(bytes, javaType));
+        }
+        return values;
+    }
+
+    /**
+     * Typed 按键前缀创建类型化的普通缓存访问器
+     * @param prefix 键前缀，如 user:
+     * @param type 值类型
+     * @return RedisValue
+     */
+    public <T> RedisValue<T> value(String prefix, Class<T> type){
+        return new RedisValue<>(this, prefix, redisCodec.type(type));
+    }
+
+    /**
+     * Typed 按键前缀创建类型化的hash访问器
+     * @param prefix 键前缀
+     * @param type 项值类型
+     * @return RedisHash
+     */
+    public <V> RedisHash<V> hash(String prefix, Class<V> type){
+        return new RedisHash<>(this, prefix, redisCodec.type(type));
+    }
+
+    <T> T getAs(String key, JavaType type){
+        if (key == null) {
+            return null;
+        }
+        byte[] rawKey = rawKey(key);
+        return redisCodec.decode(redisTemplate.execute((RedisCallback<byte[]>) connection -> connection.get(rawKey)), type);
+    }
+
+    <T> T hGetAs(String key, String item, JavaType type){
+        byte[] rawKey = rawKey(key);
+        byte[] rawItem = rawHashKey(item);
+        return redisCodec.decode(redisTemplate.execute((RedisCallback<byte[]>) connection -> connection.hGet(rawKey, rawItem)), type);
+    }
+
+    @SuppressWarnings("unchecked")
+    <V> Map<String, V> hGetAllAs(String key, JavaType type){
+        byte[] rawKey = rawKey(key);
+        Map<byte[], byte[]> raw = redisTemplate.execute((RedisCallback<Map<byte[], byte[]>>) connection -> connection.hGetAll(rawKey));
+        if (raw == null) {
+            return null;
+        }
+        RedisSerializer<String> hashKeySerializer = (RedisSerializer<String>) redisTemplate.getHashKeySerializer();
+        Map<String, V> values = new LinkedHashMap<>(raw.size());
+        for (Map.Entry<byte[], byte[]> entry : raw.entrySet()) {
+            values.put(hashKeySerializer.deserialize(entry.getKey()), redisCodec.decode(entry.getValue(), type));
+        }
+        return values;
+    }
+
+    private <T> List<T> lRangeAs(String key, long start, long end, JavaType type){
+        byte[] rawKey = rawKey(key);
+        return decodeList(redisTemplate.execute((RedisCallback<List<byte[]>>) connection -> connection.lRange(rawKey, start, end)), type);
+    }
+
+    private <T> List<T> decodeList(List<byte[]> raw, JavaType type){
+        if (raw == null) {
+            return null;
+        }
+        List<T> values = new ArrayList<>(raw.size());
+        for (byte[] bytes : raw) {
+            values.add(redisCodec.decode(bytes, type));
+        }
+        return values;
+    }
+
+    @SuppressWarnings("unchecked")
+    private byte[] rawKey(String key){
+        return ((RedisSerializer<String>) redisTemplate.getKeySerializer()).serialize(key);
+    }
+
+    @SuppressWarnings("unchecked")
+    private byte[] rawHashKey(String item){
+        return ((RedisSerializer<String>) redisTemplate.getHashKeySerializer()).serialize(item);
+    }
+
+    // ================= Geo =================
+
+    /**
+     * Geo 添加一个位置
+     * @param key 键
+     * @param longitude 经度
+     * @param latitude 纬度
+     * @param member 成员
+     * @return 成功 新增个数 失败 null
+     */
+    public Long geoAdd(String key, double longitude, double latitude, Object member){
+        try {
+            return redisTemplate.opsForGeo().add(key, new Point(longitude, latitude), member);
+        } catch (Exception e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    /**
+     * Geo 批量添加位置，一次GEOADD提交
+     * @param key 键
+     * @param members 成员 -> 坐标(x经度, y纬度)
+     * @return 成功 新增个数 失败 null
+     */
+    public Long geoAdd(String key, Map<Object, Point> members){
+        try {
+            return redisTemplate.opsForGeo().add(key, members);
+        } catch (Exception e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    /**
+     * Geo 获取两个成员之间的距离
+     * @param key 键
+     * @param member1 成员1
+     * @param member2 成员2
+     * @param metric 距离单位
+     * @return 距离，任一成员不存在返回null
+     */
+    public Distance geoDist(String key, Object member1, Object member2, Metric metric){
+        try {
+            return redisTemplate.opsForGeo().distance(key, member1, member2, metric);
+        } catch (Exception e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    /**
+     * Geo 获取两个成员之间的距离(千米)
+     * @param key 键
+     * @param member1 成员1
+     * @param member2 成员2
+     * @return 距离
+     */
+    public Distance geoDist(String key, Object member1, Object member2){
+        return geoDist(key, member1, member2, Metrics.KILOMETERS);
+    }
+
+    /**
+     * Geo 获取成员坐标
+     * @param key 键
+     * @param members 成员，可以多个
+     * @return 与members顺序一致的坐标，不存在的成员对应null
+     */
+    public List<Point> geoPos(String key, Object... members){
+        try {
+            return redisTemplate.opsForGeo().position(key, members);
+        } catch (Exception e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    /**
+     * Geo 查找指定坐标半径内的成员，由服务端计算并按距离升序截取count个
+     * @param key 键
+     * @param longitude 经度
+     * @param latitude 纬度
+     * @param radius 半径
+     * @param metric 距离单位
+     * @param count 最多返回个数，小于等于0不限制
+     * @return 含距离与坐标的结果
+     */
+    public GeoResults<GeoLocation<Object>> geoRadius(String key, double longitude, double latitude,
+                                                     double radius, Metric metric, long count){
+        try {
+            Circle within = new Circle(new Point(longitude, latitude), new Distance(radius, metric));
+            return redisTemplate.opsForGeo().radius(key, within, geoRadiusArgs(count));
+        } catch (Exception e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    /**
+     * Geo 查找指定坐标半径(千米)内最近的count个成员
+     * @param key 键
+     * @param longitude 经度
+     * @param latitude 纬度
+     * @param radius 半径(千米)
+     * @param count 最多返回个数
+     * @return 含距离与坐标的结果
+     */
+    public GeoResults<GeoLocation<Object>> geoRadius(String key, double longitude, double latitude,
+                                                     double radius, long count){
+        return geoRadius(key, longitude, latitude, radius, Metrics.KILOMETERS, count);
+    }
+
+    /**
+     * Geo 查找指定成员半径内的成员(包含其自身)，按距离升序截取count个
+     * @param key 键
+     * @param member 中心成员
+     * @param radius 半径
+     * @param metric 距离单位
+     * @param count 最多返回个数，小于等于0不限制
+     * @return 含距离与坐标的结果
+     */
+    public GeoResults<GeoLocation<Object>> geoRadiusByMember(String key, Object member,
+                                                             double radius, Metric metric, long count){
+        try {
+            return redisTemplate.opsForGeo().radius(key, member, new Distance(radius, metric), geoRadiusArgs(count));
+        } catch (Exception e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    private static GeoRadiusCommandArgs geoRadiusArgs(long count){
+        GeoRadiusCommandArgs args = GeoRadiusCommandArgs.newGeoRadiusArgs()
+                .includeDistance()
+                .includeCoordinates()
+                .sortAscending();
+        return count > 0 ? args.limit(count) : args;
+    }
+
+    // ================= Transaction =================
+
+    /**
+     * Transaction 乐观事务：WATCH keys -> 执行fn(读操作立即执行，写操作排队) -> MULTI/EXEC，
+     * 若期间被其他客户端修改则退避后重试
+     * @param keys 需要WATCH的键
+     * @param maxAttempts 最大尝试次数
+     * @param fn 事务逻辑，通过TxOps读取并登记写操作
+     * @return fn的返回值
+     * @throws IllegalArgumentException keys为空
+     * @throws OptimisticLockingFailureException 重试次数耗尽
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T optimistic(Collection<String> keys, int maxAttempts, Function<TxOps, T> fn){
+        if (keys == null || keys.isEmpty()) {
+            // 不WATCH任何键时事务无法发现冲突，乐观锁形同虚设
+            throw new IllegalArgumentException("乐观事务至少需要WATCH一个键");
+        }
+        return redisTemplate.execute(new SessionCallback<T>() {
+            @Override
+            public <K, V> T execute(RedisOperations<K, V> ops) throws DataAccessException {
+                RedisOperations<String, Object> operations = (RedisOperations<String, Object>) ops;
+                for (int attempt = 0; attempt < maxAttempts; attempt++) {
+                    operations.watch(keys);
+                    TxOps tx = new TxOps(operations);
+                    T result;
+                    try {
+                        result = fn.apply(tx);
+                    } catch (RuntimeException e) {
+                        operations.unwatch();
+                        throw e;
+                    }
+                    if (tx.writes.isEmpty()) {
+                        operations.unwatch();
+                        return result;
+                    }
+                    operations.multi();
+                    for (Consumer<RedisOperations<String, Object>> write : tx.writes) {
+                        write.accept(operations);
+                    }
+                    List<Object> exec = operations.exec();
+                    // 被WATCH的键发生变更时EXEC放弃执行，返回null或空结果(TxOps不登记空操作，正常提交时结果不为空)
+                    if (exec != null && !exec.isEmpty()) {
+                        return result;
+                    }
+                    if (attempt < maxAttempts - 1) {
+                        backoff(attempt);
+                    }
+                }
+                throw new OptimisticLockingFailureException("乐观事务重试" + maxAttempts + "次后仍冲突: " + keys);
+            }
+        });
+    }
+
+    /**
+     * Transaction 乐观事务，默认最大尝试次数
+     * @param keys 需要WATCH的键
+     * @param fn 事务逻辑
+     * @return fn的返回值
+     */
+    public <T> T optimistic(Collection<String> keys, Function<TxOps, T> fn){
+        return optimistic(keys, TX_MAX_ATTEMPTS, fn);
+    }
+
+    /**
+     * Transaction 比较并设置，当前值与expect序列化后的字节一致时才写入update
+     * 比较的是序列化结果而非反序列化后的对象，Long被读回为Integer、未实现equals的对象等情况仍能正确匹配
+     * @param key 键
+     * @param expect 期望的当前值，null表示键不存在
+     * @param update 新值
+     * @return 成功 true 当前值不符 false
+     */
+    @SuppressWarnings("unchecked")
+    public Boolean compareAndSet(String key, Object expect, Object update){
+        byte[] expected = expect == null ? null : ((RedisSerializer<Object>) redisTemplate.getValueSerializer()).serialize(expect);
+        return optimistic(Collections.singletonList(key), tx -> {
+            if (!Arrays.equals(tx.getRaw(key), expected)) {
+                return false;
+            }
+            tx.set(key, update);
+            return true;
+        });
+    }
+
+    /**
+     * Hash 基于版本号字段的比较并设置，版本号一致时写入map并将版本号加1
+     * @param key 键
+     * @param map 需要写入的项
+     * @param versionField 版本号字段
+     * @param expectedVersion 期望的版本号，字段不存在视为0
+     * @return 成功 true 版本号不符 false
+     */
+    public Boolean hCompareAndSet(String key, Map<String, Object> map, String versionField, long expectedVersion){
+        return optimistic(Collections.singletonList(key), tx -> {
+            if (toVersion(tx.hGet(key, versionField)) != expectedVersion) {
+                return false;
+            }
+            Map<String, Object> values = new HashMap<>(map);
+            values.put(versionField, expectedVersion + 1);
+            tx.hmSet(key, values);
+            return true;
+        });
+    }
+
+    /**
+     * Hash 基于默认版本号字段(version)的比较并设置
+     * @param key 键
+     * @param map 需要写入的项
+     * @param expectedVersion 期望的版本号
+     * @return 成功 true 版本号不符 false
+     */
+    public Boolean hCompareAndSet(String key, Map<String, Object> map, long expectedVersion){
+        return hCompareAndSet(key, map, VERSION_FIELD, expectedVersion);
+    }
+
+    /**
+     * Hash 读取-修改-写入，冲突时自动重试，替代 hmGet -> 修改 -> hmSet
+     * @param key 键
+     * @param fn 根据当前hash计算需要写入的项，返回null或空则不写入
+     * @return 写入的项
+     */
+    public Map<String, Object> hUpdate(String key, Function<Map<Object, Object>, Map<String, Object>> fn){
+        return optimistic(Collections.singletonList(key), tx -> {
+            Map<String, Object> values = fn.apply(tx.hmGet(key));
+            if (values != null && !values.isEmpty()) {
+                tx.hmSet(key, values);
+            }
+            return values;
+        });
+    }
+
+    private static long toVersion(Object value){
+        if (value == null) {
+            return 0L;
+        }
+        if (value instanceof Number) {
+            return ((Number) value).longValue();
+        }
+        return Long.parseLong(value.toString());
+    }
+
+    private static void backoff(int attempt){
+        long max = Math.min(TX_BACKOFF_MAX, TX_BACKOFF_BASE << Math.min(attempt, 16));
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(max + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new OptimisticLockingFailureException("乐观事务重试被中断", e);
+        }
+    }
+
+    /**
+     * 乐观事务操作：读操作在WATCH之后立即执行，写操作登记后在MULTI/EXEC中统一提交
+     * 不会产生命令的空写操作(空map、无元素)不登记，否则EXEC返回的空结果会被误判为冲突
+     */
+    public static class TxOps {
+
+        private final RedisOperations<String, Object> operations;
+
+        private final List<Consumer<RedisOperations<String, Object>>> writes = new ArrayList<>();
+
+        private TxOps(RedisOperations<String, Object> operations) {
+            this.operations = operations;
+        }
+
+        public Object get(String key){
+            return operations.opsForValue().get(key);
+        }
+
+        /**
+         * 获取未反序列化的原始值
+         */
+        @SuppressWarnings("unchecked")
+        public byte[] getRaw(String key){
+            byte[] rawKey = ((RedisSerializer<String>) operations.getKeySerializer()).serialize(key);
+            return operations.execute((RedisCallback<byte[]>) connection -> connection.get(rawKey));
+        }
+
+        public Object hGet(String key, String item){
+            return operations.opsForHash().get(key, item);
+        }
+
+        public Map<Object, Object> hmGet(String key){
+            return operations.opsForHash().entries(key);
+        }
+
+        public Set<Object> sGet(String key){
+            return operations.opsForSet().members(key);
+        }
 
+        public List<Object> lGetAll(String key){
+            return operations.opsForList().range(key, 0, -1);
+        }
+
+        public void set(String key, Object value){
+            writes.add(ops -> ops.opsForValue().set(key, value));
+        }
 
+        public void set(String key, Object value, long time, TimeUnit timeUnit){
+            writes.add(ops -> ops.opsForValue().set(key, value, time, timeUnit));
+        }
 
+        public void hSet(String key, String item, Object value){
+            writes.add(ops -> ops.opsForHash().put(key, item, value));
+        }
 
+        public void hmSet(String key, Map<String, Object> map){
+            if (map == null || map.isEmpty()) {
+                return;
+            }
+            writes.add(ops -> ops.opsForHash().putAll(key, map));
+        }
 
+        public void hDel(String key, Object... item){
+            if (item == null || item.length == 0) {
+                return;
+            }
+            writes.add(ops -> ops.opsForHash().delete(key, item));
+        }
 
+        public void sSet(String key, Object... values){
+            if (values == null || values.length == 0) {
+                return;
+            }
+            writes.add(ops -> ops.opsForSet().add(key, values));
+        }
 
+        public void lRightPush(String key, Object value){
+            writes.add(ops -> ops.opsForList().rightPush(key, value));
+        }
 
+        public void del(String key){
+            writes.add(ops -> ops.delete(key));
+        }
 
+        public void expire(String key, long time, TimeUnit timeUnit){
+            writes.add(ops -> ops.expire(key, time, timeUnit));
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.heycm.utils;
+
+import com.fasterxml.jackson.databind.JavaType;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 按键前缀划分的类型化普通缓存，通过 {@link RedisUtil#value(String, Class)} 创建
+ * @param <T> 值类型
+ */
+public class RedisValue<T> {
+
+    private final RedisUtil redisUtil;
+
+    private final String prefix;
+
+    private final JavaType type;
+
+    RedisValue(RedisUtil redisUtil, String prefix, JavaType type) {
+        this.redisUtil = redisUtil;
+        this.prefix = prefix;
+        this.type = type;
+    }
+
+    /**
+     * @param id 键后缀
+     * @return 完整的键
+     */
+    public String key(Object id){
+        return prefix + id;
+    }
+
+    /**
+     * 获取值，直接解码为T
+     * @param id 键后缀
+     * @return 值
+     */
+    public T get(Object id){
+        return redisUtil.getAs(key(id), type);
+    }
+
+    /**
+     * 放入值
+     * @param id 键后缀
+     * @param value 值
+     * @return 成功 true 失败 false
+     */
+    public Boolean set(Object id, T value){
+        return redisUtil.set(key(id), value);
+    }
+
+    /**
+     * 放入值并设置时间
+     * @param id 键后缀
+     * @param value 值
+     * @param time 时间 若time<0则无限期
+     * @param timeUnit 时间单位
+     * @return 成功 true 失败 false
+     */
+    public Boolean set(Object id, T value, long time, TimeUnit timeUnit){
+        return redisUtil.set(key(id), value, time, timeUnit);
+    }
+
+    /**
+     * 删除
+     * @param id 键后缀
+     * @return 删除数量
+     */
+    public Long del(Object id){
+        return redisUtil.del(key(id));
+    }
+}
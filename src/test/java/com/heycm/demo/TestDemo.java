@@ -1,13 +1,16 @@
 package com.heycm.demo;
 
+import com.heycm.server.RespServerInitializer;
 import com.heycm.utils.RedisUtil;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ContextConfiguration;
 
 import java.util.concurrent.TimeUnit;
 
 @SpringBootTest
+@ContextConfiguration(initializers = RespServerInitializer.class)
 public class TestDemo {
 
     @Autowired
@@ -0,0 +1,1468 @@
+package com.heycm.server;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
+
+/**
+ * 测试用的进程内 RESP2 服务端，实现RedisUtil用到的命令子集：
+ * 字符串、hash、set、list、过期时间、AUTH/SELECT、MULTI/EXEC/WATCH、
+ * GEO(GEOADD/GEODIST/GEOPOS/GEORADIUS/GEORADIUSBYMEMBER，不支持WITHHASH与STORE)、
+ * 发布订阅(PUBLISH/SUBSCRIBE/PSUBSCRIBE及对应的取消订阅)、SCRIPT LOAD/EXISTS/FLUSH(只登记脚本，不执行EVAL)
+ * <p>
+ * 支持注入延迟与故障，用于在没有真实Redis的环境下运行集成测试、压测，以及模拟慢或不可用的Redis。
+ * 所有命令在同一把锁内执行，与Redis的单线程语义一致；延迟在锁外注入，不阻塞其他连接。
+ */
+public class RespServer {
+
+    private static final int DATABASES = 16;
+
+    private static final Object NULL_ARRAY = new Object();
+
+    private static final StatusReply OK = new StatusReply("OK");
+
+    private static final StatusReply QUEUED = new StatusReply("QUEUED");
+
+    private static final double EARTH_RADIUS_IN_METERS = 6372797.560856;
+
+    private static final ErrorReply WRONG_TYPE = new ErrorReply("WRONGTYPE Operation against a key holding the wrong kind of value");
+
+    /**
+     * 注入的故障类型
+     */
+    public enum FailureMode {
+        /**
+         * 返回错误回复
+         */
+        ERROR,
+        /**
+         * 直接断开连接
+         */
+        DISCONNECT
+    }
+
+    private final int requestedPort;
+
+    private final String password;
+
+    private final List<Map<String, Entry>> databases = new ArrayList<>();
+
+    /**
+     * 每个键的修改版本，WATCH通过比较版本判断键是否被修改
+     */
+    private final List<Map<String, Long>> versions = new ArrayList<>();
+
+    private long versionSeq;
+
+    /**
+     * 订阅了至少一个频道或模式的连接
+     */
+    private final Set<Session> subscribers = new LinkedHashSet<>();
+
+    /**
+     * SCRIPT LOAD 登记的脚本SHA1
+     */
+    private final Set<String> scripts = new HashSet<>();
+
+    private final Set<Socket> clients = Collections.synchronizedSet(new LinkedHashSet<>());
+
+    private final AtomicInteger commandCount = new AtomicInteger();
+
+    private ServerSocket serverSocket;
+
+    private ExecutorService workers;
+
+    private volatile long latencyMillis;
+
+    private volatile double failureRate;
+
+    private volatile FailureMode failureMode = FailureMode.ERROR;
+
+    private final AtomicInteger failNext = new AtomicInteger();
+
+    /**
+     * @param port 端口，0表示随机可用端口
+     * @param password 密码，null表示不需要AUTH
+     */
+    public RespServer(int port, String password) {
+        this.requestedPort = port;
+        this.password = password;
+        for (int i = 0; i < DATABASES; i++) {
+            databases.add(new HashMap<>());
+            versions.add(new HashMap<>());
+        }
+    }
+
+    public RespServer(String password) {
+        this(0, password);
+    }
+
+    // ================= Lifecycle =================
+
+    public synchronized RespServer start() throws IOException {
+        if (serverSocket != null) {
+            return this;
+        }
+        serverSocket = new ServerSocket(requestedPort, 128, InetAddress.getLoopbackAddress());
+        workers = Executors.newCachedThreadPool(r -> {
+            Thread thread = new Thread(r, "resp-server-" + serverSocket.getLocalPort());
+            thread.setDaemon(true);
+            return thread;
+        });
+        workers.execute(this::acceptLoop);
+        return this;
+    }
+
+    public synchronized void stop() {
+        if (serverSocket == null) {
+            return;
+        }
+        closeQuietly(serverSocket);
+        disconnectAll();
+        workers.shutdownNow();
+        serverSocket = null;
+    }
+
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    /**
+     * @return 启动以来处理的命令数(不含被注入故障的命令)
+     */
+    public int getCommandCount() {
+        return commandCount.get();
+    }
+
+    /**
+     * 断开当前所有客户端连接，客户端会自动重连
+     */
+    public void disconnectAll() {
+        synchronized (clients) {
+            for (Socket client : clients) {
+                closeQuietly(client);
+            }
+            clients.clear();
+        }
+    }
+
+    // ================= Fault injection =================
+
+    /**
+     * 每条命令执行前的延迟，超过客户端超时时间即可模拟超时
+     * @param latencyMillis 毫秒，0表示无延迟
+     */
+    public void setLatency(long latencyMillis) {
+        this.latencyMillis = latencyMillis;
+    }
+
+    /**
+     * 按概率对命令注入故障
+     * @param failureRate 0~1
+     * @param failureMode 故障类型
+     */
+    public void setFailureRate(double failureRate, FailureMode failureMode) {
+        this.failureRate = failureRate;
+        this.failureMode = failureMode;
+    }
+
+    /**
+     * 接下来的count条命令注入故障
+     * @param count 命令数
+     * @param failureMode 故障类型
+     */
+    public void failNext(int count, FailureMode failureMode) {
+        this.failureMode = failureMode;
+        this.failNext.set(count);
+    }
+
+    /**
+     * 清除所有注入的延迟与故障
+     */
+    public void clearFaults() {
+        latencyMillis = 0;
+        failureRate = 0;
+        failNext.set(0);
+    }
+
+    /**
+     * 清空所有数据库
+     */
+    public synchronized void flushAll() {
+        for (int i = 0; i < DATABASES; i++) {
+            databases.get(i).clear();
+            versions.get(i).clear();
+        }
+    }
+
+    // ================= Connection =================
+
+    private void acceptLoop() {
+        ServerSocket server = serverSocket;
+        while (!server.isClosed()) {
+            try {
+                Socket client = server.accept();
+                client.setTcpNoDelay(true);
+                clients.add(client);
+                workers.execute(() -> serve(client));
+            } catch (IOException e) {
+                // 关闭时accept抛出异常，直接退出
+            }
+        }
+    }
+
+    private void serve(Socket client) {
+        Session session = new Session();
+        try (InputStream in = new BufferedInputStream(client.getInputStream());
+             OutputStream out = new BufferedOutputStream(client.getOutputStream())) {
+            session.out = out;
+            while (!client.isClosed()) {
+                List<String> command = readCommand(in);
+                if (command == null) {
+                    break;
+                }
+                if (command.isEmpty()) {
+                    continue;
+                }
+                sleep(latencyMillis);
+                FailureMode failure = nextFailure();
+                if (failure == FailureMode.DISCONNECT) {
+                    break;
+                }
+                Object reply = failure == FailureMode.ERROR
+                        ? new ErrorReply("ERR injected failure")
+                        : handle(session, command);
+                session.write(reply);
+                if (session.quit) {
+                    break;
+                }
+            }
+        } catch (IOException e) {
+            // 客户端断开
+        } finally {
+            synchronized (this) {
+                subscribers.remove(session);
+            }
+            clients.remove(client);
+            closeQuietly(client);
+        }
+    }
+
+    private FailureMode nextFailure() {
+        if (failNext.get() > 0 && failNext.getAndDecrement() > 0) {
+            return failureMode;
+        }
+        if (failureRate > 0 && ThreadLocalRandom.current().nextDouble() < failureRate) {
+            return failureMode;
+        }
+        return null;
+    }
+
+    // ================= Protocol =================
+
+    /**
+     * 读取一条命令，支持RESP数组与inline命令
+     * @return 参数列表，连接关闭返回null
+     */
+    private static List<String> readCommand(InputStream in) throws IOException {
+        int first = in.read();
+        if (first == -1) {
+            return null;
+        }
+        if (first != '*') {
+            String line = (char) first + readLine(in);
+            List<String> args = new ArrayList<>();
+            for (String arg : line.trim().split("\\s+")) {
+                if (!arg.isEmpty()) {
+                    args.add(arg);
+                }
+            }
+            return args;
+        }
+        int count = Integer.parseInt(readLine(in));
+        List<String> args = new ArrayList<>(Math.max(count, 0));
+        for (int i = 0; i < count; i++) {
+            if (in.read() != '$') {
+                throw new IOException("Protocol error: expected bulk string");
+            }
+            int length = Integer.parseInt(readLine(in));
+            byte[] bytes = new byte[length];
+            int read = 0;
+            while (read < length) {
+                int n = in.read(bytes, read, length - read);
+                if (n == -1) {
+                    throw new EOFException();
+                }
+                read += n;
+            }
+            readLine(in);
+            args.add(new String(bytes, StandardCharsets.ISO_8859_1));
+        }
+        return args;
+    }
+
+    private static String readLine(InputStream in) throws IOException {
+        StringBuilder line = new StringBuilder();
+        int c;
+        while ((c = in.read()) != '\r') {
+            if (c == -1) {
+                throw new EOFException();
+            }
+            line.append((char) c);
+        }
+        if (in.read() != '\n') {
+            throw new IOException("Protocol error: expected LF");
+        }
+        return line.toString();
+    }
+
+    private static void writeReply(OutputStream out, Object reply) throws IOException {
+        if (reply == null) {
+            out.write("$-1\r\n".getBytes(StandardCharsets.ISO_8859_1));
+        } else if (reply == NULL_ARRAY) {
+            out.write("*-1\r\n".getBytes(StandardCharsets.ISO_8859_1));
+        } else if (reply instanceof StatusReply) {
+            writeLine(out, "+" + ((StatusReply) reply).message);
+        } else if (reply instanceof ErrorReply) {
+            writeLine(out, "-" + ((ErrorReply) reply).message);
+        } else if (reply instanceof Long) {
+            writeLine(out, ":" + reply);
+        } else if (reply instanceof String) {
+            byte[] bytes = ((String) reply).getBytes(StandardCharsets.ISO_8859_1);
+            writeLine(out, "$" + bytes.length);
+            out.write(bytes);
+            out.write('\r');
+            out.write('\n');
+        } else if (reply instanceof Pushes) {
+            // 订阅类命令对每个参数各回复一条，而不是一个数组
+            for (List<Object> push : ((Pushes) reply).items) {
+                writeReply(out, push);
+            }
+        } else if (reply instanceof List) {
+            List<?> items = (List<?>) reply;
+            writeLine(out, "*" + items.size());
+            for (Object item : items) {
+                writeReply(out, item);
+            }
+        } else {
+            throw new IllegalStateException("Unsupported reply: " + reply);
+        }
+    }
+
+    private static void writeLine(OutputStream out, String line) throws IOException {
+        out.write(line.getBytes(StandardCharsets.ISO_8859_1));
+        out.write('\r');
+        out.write('\n');
+    }
+
+    // ================= Commands =================
+
+    private synchronized Object handle(Session session, List<String> command) {
+        String name = command.get(0).toUpperCase();
+        List<String> args = command.subList(1, command.size());
+        if (password != null && !session.authenticated && !"AUTH".equals(name) && !"QUIT".equals(name)) {
+            return new ErrorReply("NOAUTH Authentication required.");
+        }
+        if (session.isSubscribed() && !isSubscribeContext(name)) {
+            return new ErrorReply("ERR only (P)SUBSCRIBE / (P)UNSUBSCRIBE / PING / QUIT allowed in this context");
+        }
+        if (session.multi != null && !isTransactionControl(name)) {
+            session.multi.add(command);
+            return QUEUED;
+        }
+        try {
+            return execute(session, name, args);
+        } catch (NumberFormatException e) {
+            return new ErrorReply("ERR value is not an integer or out of range");
+        } catch (IndexOutOfBoundsException e) {
+            return new ErrorReply("ERR wrong number of arguments for '" + name.toLowerCase() + "' command");
+        } catch (WrongTypeException e) {
+            return WRONG_TYPE;
+        }
+    }
+
+    private static boolean isTransactionControl(String name) {
+        return "EXEC".equals(name) || "DISCARD".equals(name) || "MULTI".equals(name) || "WATCH".equals(name);
+    }
+
+    private static boolean isSubscribeContext(String name) {
+        return name.endsWith("SUBSCRIBE") || "PING".equals(name) || "QUIT".equals(name);
+    }
+
+    private Object execute(Session session, String name, List<String> args) {
+        commandCount.incrementAndGet();
+        Map<String, Entry> db = databases.get(session.db);
+        switch (name) {
+            // ---------- Connection ----------
+            case "AUTH":
+                if (password == null || password.equals(args.get(args.size() - 1))) {
+                    session.authenticated = true;
+                    return OK;
+                }
+                return new ErrorReply("ERR invalid password");
+            case "SELECT": {
+                int index = Integer.parseInt(args.get(0));
+                if (index < 0 || index >= DATABASES) {
+                    return new ErrorReply("ERR DB index is out of range");
+                }
+                session.db = index;
+                return OK;
+            }
+            case "PING":
+                if (session.isSubscribed()) {
+                    return Arrays.asList("pong", args.isEmpty() ? "" : args.get(0));
+                }
+                return args.isEmpty() ? new StatusReply("PONG") : args.get(0);
+            case "ECHO":
+                return args.get(0);
+            case "QUIT":
+                session.quit = true;
+                return OK;
+            case "CLIENT":
+                return OK;
+            case "FLUSHDB":
+                db.clear();
+                versions.get(session.db).clear();
+                return OK;
+            case "FLUSHALL":
+                flushAll();
+                return OK;
+            case "DBSIZE":
+                purgeExpired(db);
+                return (long) db.size();
+
+            // ---------- Transaction ----------
+            case "MULTI":
+                if (session.multi != null) {
+                    return new ErrorReply("ERR MULTI calls can not be nested");
+                }
+                session.multi = new ArrayList<>();
+                return OK;
+            case "DISCARD":
+                if (session.multi == null) {
+                    return new ErrorReply("ERR DISCARD without MULTI");
+                }
+                session.multi = null;
+                session.watched.clear();
+                return OK;
+            case "WATCH":
+                if (session.multi != null) {
+                    return new ErrorReply("ERR WATCH inside MULTI is not allowed");
+                }
+                for (String key : args) {
+                    lookup(session.db, key);
+                    session.watched.put(new WatchedKey(session.db, key), version(session.db, key));
+                }
+                return OK;
+            case "UNWATCH":
+                session.watched.clear();
+                return OK;
+            case "EXEC":
+                return exec(session);
+
+            // ---------- Keys ----------
+            case "DEL": {
+                long removed = 0;
+                for (String key : args) {
+                    if (lookup(session.db, key) != null) {
+                        db.remove(key);
+                        touch(session.db, key);
+                        removed++;
+                    }
+                }
+                return removed;
+            }
+            case "EXISTS": {
+                long count = 0;
+                for (String key : args) {
+                    if (lookup(session.db, key) != null) {
+                        count++;
+                    }
+                }
+                return count;
+            }
+            case "TYPE": {
+                Entry entry = lookup(session.db, args.get(0));
+                return new StatusReply(entry == null ? "none" : entry.type());
+            }
+            case "EXPIRE":
+                return expire(session.db, args.get(0), Long.parseLong(args.get(1)) * 1000);
+            case "PEXPIRE":
+                return expire(session.db, args.get(0), Long.parseLong(args.get(1)));
+            case "TTL":
+            case "PTTL": {
+                Entry entry = lookup(session.db, args.get(0));
+                if (entry == null) {
+                    return -2L;
+                }
+                if (entry.expireAt == 0) {
+                    return -1L;
+                }
+                long remaining = Math.max(entry.expireAt - System.currentTimeMillis(), 0);
+                return "TTL".equals(name) ? (remaining + 500) / 1000 : remaining;
+            }
+            case "PERSIST": {
+                Entry entry = lookup(session.db, args.get(0));
+                if (entry == null || entry.expireAt == 0) {
+                    return 0L;
+                }
+                entry.expireAt = 0;
+                touch(session.db, args.get(0));
+                return 1L;
+            }
+            case "KEYS": {
+                purgeExpired(db);
+                Pattern pattern = glob(args.get(0));
+                List<Object> keys = new ArrayList<>();
+                for (String key : db.keySet()) {
+                    if (pattern.matcher(key).matches()) {
+                        keys.add(key);
+                    }
+                }
+                return keys;
+            }
+            case "SCAN": {
+                // 一次返回全部匹配的键，游标固定为0
+                purgeExpired(db);
+                Pattern pattern = null;
+                for (int i = 1; i + 1 < args.size(); i += 2) {
+                    if ("MATCH".equalsIgnoreCase(args.get(i))) {
+                        pattern = glob(args.get(i + 1));
+                    }
+                }
+                List<Object> keys = new ArrayList<>();
+                for (String key : db.keySet()) {
+                    if (pattern == null || pattern.matcher(key).matches()) {
+                        keys.add(key);
+                    }
+                }
+                return Arrays.asList("0", keys);
+            }
+
+            // ---------- Strings ----------
+            case "GET":
+                return string(session.db, args.get(0));
+            case "SET":
+                return set(session.db, args);
+            case "SETNX":
+                if (lookup(session.db, args.get(0)) != null) {
+                    return 0L;
+                }
+                putString(session.db, args.get(0), args.get(1), 0);
+                return 1L;
+            case "SETEX":
+                putString(session.db, args.get(0), args.get(2), Long.parseLong(args.get(1)) * 1000);
+                return OK;
+            case "PSETEX":
+                putString(session.db, args.get(0), args.get(2), Long.parseLong(args.get(1)));
+                return OK;
+            case "MGET": {
+                List<Object> values = new ArrayList<>();
+                for (String key : args) {
+                    Entry entry = lookup(session.db, key);
+                    values.add(entry != null && entry.value instanceof String ? entry.value : null);
+                }
+                return values;
+            }
+            case "MSET":
+                for (int i = 0; i + 1 < args.size(); i += 2) {
+                    putString(session.db, args.get(i), args.get(i + 1), 0);
+                }
+                return OK;
+            case "INCR":
+                return incrBy(session.db, args.get(0), 1);
+            case "DECR":
+                return incrBy(session.db, args.get(0), -1);
+            case "INCRBY":
+                return incrBy(session.db, args.get(0), Long.parseLong(args.get(1)));
+            case "DECRBY":
+                return incrBy(session.db, args.get(0), -Long.parseLong(args.get(1)));
+            case "INCRBYFLOAT": {
+                String current = string(session.db, args.get(0));
+                String value = formatDouble((current == null ? 0 : Double.parseDouble(current)) + Double.parseDouble(args.get(1)));
+                Entry entry = lookup(session.db, args.get(0));
+                putString(session.db, args.get(0), value, 0);
+                keepExpire(session.db, args.get(0), entry);
+                return value;
+            }
+
+            // ---------- Hashes ----------
+            case "HGET":
+                return hash(session.db, args.get(0), false).get(args.get(1));
+            case "HSET":
+            case "HMSET": {
+                if (args.size() < 3 || args.size() % 2 == 0) {
+                    throw new IndexOutOfBoundsException();
+                }
+                Map<String, String> hash = hash(session.db, args.get(0), true);
+                long added = 0;
+                for (int i = 1; i + 1 < args.size(); i += 2) {
+                    if (hash.put(args.get(i), args.get(i + 1)) == null) {
+                        added++;
+                    }
+                }
+                touch(session.db, args.get(0));
+                return "HMSET".equals(name) ? OK : (Object) added;
+            }
+            case "HSETNX": {
+                Map<String, String> hash = hash(session.db, args.get(0), true);
+                if (hash.containsKey(args.get(1))) {
+                    return 0L;
+                }
+                hash.put(args.get(1), args.get(2));
+                touch(session.db, args.get(0));
+                return 1L;
+            }
+            case "HMGET": {
+                Map<String, String> hash = hash(session.db, args.get(0), false);
+                List<Object> values = new ArrayList<>();
+                for (String field : args.subList(1, args.size())) {
+                    values.add(hash.get(field));
+                }
+                return values;
+            }
+            case "HGETALL": {
+                List<Object> values = new ArrayList<>();
+                for (Map.Entry<String, String> field : hash(session.db, args.get(0), false).entrySet()) {
+                    values.add(field.getKey());
+                    values.add(field.getValue());
+                }
+                return values;
+            }
+            case "HKEYS":
+                return new ArrayList<Object>(hash(session.db, args.get(0), false).keySet());
+            case "HVALS":
+                return new ArrayList<Object>(hash(session.db, args.get(0), false).values());
+            case "HLEN":
+                return (long) hash(session.db, args.get(0), false).size();
+            case "HEXISTS":
+                return hash(session.db, args.get(0), false).containsKey(args.get(1)) ? 1L : 0L;
+            case "HDEL": {
+                Map<String, String> hash = hash(session.db, args.get(0), false);
+                long removed = 0;
+                for (String field : args.subList(1, args.size())) {
+                    if (hash.remove(field) != null) {
+                        removed++;
+                    }
+                }
+                if (removed > 0) {
+                    removeIfEmpty(session.db, args.get(0), hash.isEmpty());
+                    touch(session.db, args.get(0));
+                }
+                return removed;
+            }
+            case "HINCRBY": {
+                Map<String, String> hash = hash(session.db, args.get(0), true);
+                String current = hash.get(args.get(1));
+                long value = (current == null ? 0 : Long.parseLong(current)) + Long.parseLong(args.get(2));
+                hash.put(args.get(1), String.valueOf(value));
+                touch(session.db, args.get(0));
+                return value;
+            }
+            case "HINCRBYFLOAT": {
+                Map<String, String> hash = hash(session.db, args.get(0), true);
+                String current = hash.get(args.get(1));
+                String value = formatDouble((current == null ? 0 : Double.parseDouble(current)) + Double.parseDouble(args.get(2)));
+                hash.put(args.get(1), value);
+                touch(session.db, args.get(0));
+                return value;
+            }
+
+            // ---------- Sets ----------
+            case "SADD": {
+                Set<String> set = set(session.db, args.get(0), true);
+                long added = 0;
+                for (String member : args.subList(1, args.size())) {
+                    if (set.add(member)) {
+                        added++;
+                    }
+                }
+                touch(session.db, args.get(0));
+                return added;
+            }
+            case "SREM": {
+                Set<String> set = set(session.db, args.get(0), false);
+                long removed = 0;
+                for (String member : args.subList(1, args.size())) {
+                    if (set.remove(member)) {
+                        removed++;
+                    }
+                }
+                if (removed > 0) {
+                    removeIfEmpty(session.db, args.get(0), set.isEmpty());
+                    touch(session.db, args.get(0));
+                }
+                return removed;
+            }
+            case "SMEMBERS":
+                return new ArrayList<Object>(set(session.db, args.get(0), false));
+            case "SISMEMBER":
+                return set(session.db, args.get(0), false).contains(args.get(1)) ? 1L : 0L;
+            case "SCARD":
+                return (long) set(session.db, args.get(0), false).size();
+
+            // ---------- Lists ----------
+            case "LPUSH":
+            case "RPUSH": {
+                if (args.size() < 2) {
+                    throw new IndexOutOfBoundsException();
+                }
+                List<String> list = list(session.db, args.get(0), true);
+                for (String value : args.subList(1, args.size())) {
+                    if ("LPUSH".equals(name)) {
+                        list.add(0, value);
+                    } else {
+                        list.add(value);
+                    }
+                }
+                touch(session.db, args.get(0));
+                return (long) list.size();
+            }
+            case "LPOP":
+            case "RPOP": {
+                List<String> list = list(session.db, args.get(0), false);
+                if (list.isEmpty()) {
+                    return null;
+                }
+                String value = "LPOP".equals(name) ? list.remove(0) : list.remove(list.size() - 1);
+                removeIfEmpty(session.db, args.get(0), list.isEmpty());
+                touch(session.db, args.get(0));
+                return value;
+            }
+            case "LLEN":
+                return (long) list(session.db, args.get(0), false).size();
+            case "LRANGE": {
+                List<String> list = list(session.db, args.get(0), false);
+                int size = list.size();
+                int start = index(Long.parseLong(args.get(1)), size);
+                int end = Math.min(index(Long.parseLong(args.get(2)), size), size - 1);
+                if (start > end || start >= size) {
+                    return new ArrayList<>();
+                }
+                return new ArrayList<Object>(list.subList(start, end + 1));
+            }
+            case "LINDEX": {
+                List<String> list = list(session.db, args.get(0), false);
+                long index = Long.parseLong(args.get(1));
+                int i = (int) (index < 0 ? list.size() + index : index);
+                return i < 0 || i >= list.size() ? null : list.get(i);
+            }
+            case "LSET": {
+                Entry entry = lookup(session.db, args.get(0));
+                if (entry == null) {
+                    return new ErrorReply("ERR no such key");
+                }
+                List<String> list = list(session.db, args.get(0), false);
+                long index = Long.parseLong(args.get(1));
+                int i = (int) (index < 0 ? list.size() + index : index);
+                if (i < 0 || i >= list.size()) {
+                    return new ErrorReply("ERR index out of range");
+                }
+                list.set(i, args.get(2));
+                touch(session.db, args.get(0));
+                return OK;
+            }
+            case "LREM": {
+                List<String> list = list(session.db, args.get(0), false);
+                long count = Long.parseLong(args.get(1));
+                String value = args.get(2);
+                long removed = 0;
+                if (count >= 0) {
+                    for (Iterator<String> it = list.iterator(); it.hasNext() && (count == 0 || removed < count); ) {
+                        if (it.next().equals(value)) {
+                            it.remove();
+                            removed++;
+                        }
+                    }
+                } else {
+                    for (int i = list.size() - 1; i >= 0 && removed < -count; i--) {
+                        if (list.get(i).equals(value)) {
+                            list.remove(i);
+                            removed++;
+                        }
+                    }
+                }
+                if (removed > 0) {
+                    removeIfEmpty(session.db, args.get(0), list.isEmpty());
+                    touch(session.db, args.get(0));
+                }
+                return removed;
+            }
+            // ---------- Geo ----------
+            case "GEOADD": {
+                if (args.size() < 4 || (args.size() - 1) % 3 != 0) {
+                    throw new IndexOutOfBoundsException();
+                }
+                List<double[]> points = new ArrayList<>();
+                for (int i = 1; i < args.size(); i += 3) {
+                    double lon = Double.parseDouble(args.get(i));
+                    double lat = Double.parseDouble(args.get(i + 1));
+                    if (lon < -180 || lon > 180 || lat < -85.05112878 || lat > 85.05112878) {
+                        return new ErrorReply("ERR invalid longitude,latitude pair " + args.get(i) + "," + args.get(i + 1));
+                    }
+                    points.add(new double[]{lon, lat});
+                }
+                Map<String, double[]> geo = geo(session.db, args.get(0), true).members;
+                long added = 0;
+                for (int i = 1, p = 0; i < args.size(); i += 3, p++) {
+                    if (geo.put(args.get(i + 2), points.get(p)) == null) {
+                        added++;
+                    }
+                }
+                touch(session.db, args.get(0));
+                return added;
+            }
+            case "GEODIST": {
+                Map<String, double[]> geo = geo(session.db, args.get(0), false).members;
+                double unit = args.size() > 3 ? unit(args.get(3)) : 1;
+                double[] from = geo.get(args.get(1));
+                double[] to = geo.get(args.get(2));
+                if (unit <= 0) {
+                    return new ErrorReply("ERR unsupported unit provided. please use m, km, ft, mi");
+                }
+                if (from == null || to == null) {
+                    return null;
+                }
+                return formatDistance(distance(from, to) / unit);
+            }
+            case "GEOPOS": {
+                Map<String, double[]> geo = geo(session.db, args.get(0), false).members;
+                List<Object> reply = new ArrayList<>();
+                for (String member : args.subList(1, args.size())) {
+                    double[] point = geo.get(member);
+                    reply.add(point == null ? NULL_ARRAY : Arrays.asList(formatCoordinate(point[0]), formatCoordinate(point[1])));
+                }
+                return reply;
+            }
+            case "GEORADIUS":
+            case "GEORADIUS_RO": {
+                double[] center = {Double.parseDouble(args.get(1)), Double.parseDouble(args.get(2))};
+                return geoRadius(session.db, args.get(0), center, args.subList(3, args.size()));
+            }
+            case "GEORADIUSBYMEMBER":
+            case "GEORADIUSBYMEMBER_RO": {
+                double[] center = geo(session.db, args.get(0), false).members.get(args.get(1));
+                if (center == null) {
+                    return new ErrorReply("ERR could not decode requested zset member");
+                }
+                return geoRadius(session.db, args.get(0), center, args.subList(2, args.size()));
+            }
+            // ---------- Pub/Sub ----------
+            case "PUBLISH": {
+                String channel = args.get(0);
+                String message = args.get(1);
+                long receivers = 0;
+                for (Session subscriber : new ArrayList<>(subscribers)) {
+                    if (subscriber.channels.contains(channel)) {
+                        subscriber.push(Arrays.asList("message", channel, message));
+                        receivers++;
+                    }
+                    for (Map.Entry<String, Pattern> pattern : subscriber.patterns.entrySet()) {
+                        if (pattern.getValue().matcher(channel).matches()) {
+                            subscriber.push(Arrays.asList("pmessage", pattern.getKey(), channel, message));
+                            receivers++;
+                        }
+                    }
+                }
+                return receivers;
+            }
+            case "SUBSCRIBE":
+            case "PSUBSCRIBE": {
+                if (args.isEmpty()) {
+                    throw new IndexOutOfBoundsException();
+                }
+                Pushes pushes = new Pushes();
+                for (String target : args) {
+                    if ("SUBSCRIBE".equals(name)) {
+                        session.channels.add(target);
+                    } else {
+                        session.patterns.put(target, glob(target));
+                    }
+                    pushes.add(name.toLowerCase(), target, session.subscriptionCount());
+                }
+                subscribers.add(session);
+                return pushes;
+            }
+            case "UNSUBSCRIBE":
+            case "PUNSUBSCRIBE": {
+                Set<String> targets = "UNSUBSCRIBE".equals(name) ? session.channels : session.patterns.keySet();
+                List<String> removing = args.isEmpty() ? new ArrayList<>(targets) : args;
+                Pushes pushes = new Pushes();
+                for (String target : removing) {
+                    targets.remove(target);
+                    pushes.add(name.toLowerCase(), target, session.subscriptionCount());
+                }
+                if (removing.isEmpty()) {
+                    pushes.add(name.toLowerCase(), null, session.subscriptionCount());
+                }
+                if (!session.isSubscribed()) {
+                    subscribers.remove(session);
+                }
+                return pushes;
+            }
+            // ---------- Scripting ----------
+            case "SCRIPT": {
+                String sub = args.get(0).toUpperCase();
+                if ("LOAD".equals(sub)) {
+                    String sha = sha1(args.get(1));
+                    scripts.add(sha);
+                    return sha;
+                }
+                if ("EXISTS".equals(sub)) {
+                    List<Object> reply = new ArrayList<>();
+                    for (String sha : args.subList(1, args.size())) {
+                        reply.add(scripts.contains(sha.toLowerCase()) ? 1L : 0L);
+                    }
+                    return reply;
+                }
+                if ("FLUSH".equals(sub)) {
+                    scripts.clear();
+                    return OK;
+                }
+                return new ErrorReply("ERR unknown subcommand '" + args.get(0) + "'");
+            }
+            default:
+                commandCount.decrementAndGet();
+                return new ErrorReply("ERR unknown command '" + name.toLowerCase() + "'");
+        }
+    }
+
+    /**
+     * GEORADIUS/GEORADIUSBYMEMBER 的公共部分，options 从 radius 开始
+     */
+    private Object geoRadius(int db, String key, double[] center, List<String> options) {
+        double unit = unit(options.get(1));
+        if (unit <= 0) {
+            return new ErrorReply("ERR unsupported unit provided. please use m, km, ft, mi");
+        }
+        double radius = Double.parseDouble(options.get(0)) * unit;
+        boolean withDist = false;
+        boolean withCoord = false;
+        int sort = 0;
+        long count = 0;
+        for (int i = 2; i < options.size(); i++) {
+            String option = options.get(i).toUpperCase();
+            if ("WITHDIST".equals(option)) {
+                withDist = true;
+            } else if ("WITHCOORD".equals(option)) {
+                withCoord = true;
+            } else if ("ASC".equals(option)) {
+                sort = 1;
+            } else if ("DESC".equals(option)) {
+                sort = -1;
+            } else if ("COUNT".equals(option)) {
+                count = Long.parseLong(options.get(++i));
+                if (count <= 0) {
+                    return new ErrorReply("ERR COUNT must be > 0");
+                }
+            } else {
+                return new ErrorReply("ERR unsupported option " + options.get(i));
+            }
+        }
+        List<Map.Entry<String, Double>> matches = new ArrayList<>();
+        Map<String, double[]> geo = geo(db, key, false).members;
+        for (Map.Entry<String, double[]> member : geo.entrySet()) {
+            double distance = distance(center, member.getValue());
+            if (distance <= radius) {
+                matches.add(new AbstractMap.SimpleEntry<>(member.getKey(), distance));
+            }
+        }
+        // 与Redis一致：指定COUNT但未指定排序时按距离升序
+        if (sort == 0 && count > 0) {
+            sort = 1;
+        }
+        if (sort != 0) {
+            Comparator<Map.Entry<String, Double>> byDistance = Map.Entry.comparingByValue();
+            matches.sort(sort > 0 ? byDistance : byDistance.reversed());
+        }
+        if (count > 0 && matches.size() > count) {
+            matches = matches.subList(0, (int) count);
+        }
+        List<Object> reply = new ArrayList<>();
+        for (Map.Entry<String, Double> match : matches) {
+            if (!withDist && !withCoord) {
+                reply.add(match.getKey());
+                continue;
+            }
+            List<Object> item = new ArrayList<>();
+            item.add(match.getKey());
+            if (withDist) {
+                item.add(formatDistance(match.getValue() / unit));
+            }
+            if (withCoord) {
+                double[] point = geo.get(match.getKey());
+                item.add(Arrays.asList(formatCoordinate(point[0]), formatCoordinate(point[1])));
+            }
+            reply.add(item);
+        }
+        return reply;
+    }
+
+    private Object exec(Session session) {
+        if (session.multi == null) {
+            return new ErrorReply("ERR EXEC without MULTI");
+        }
+        List<List<String>> queued = session.multi;
+        session.multi = null;
+        boolean aborted = false;
+        for (Map.Entry<WatchedKey, Long> watched : session.watched.entrySet()) {
+            WatchedKey key = watched.getKey();
+            lookup(key.db, key.key);
+            if (version(key.db, key.key) != watched.getValue()) {
+                aborted = true;
+                break;
+            }
+        }
+        session.watched.clear();
+        if (aborted) {
+            return NULL_ARRAY;
+        }
+        List<Object> replies = new ArrayList<>(queued.size());
+        for (List<String> command : queued) {
+            replies.add(handle(session, command));
+        }
+        return replies;
+    }
+
+    private Object set(int db, List<String> args) {
+        String key = args.get(0);
+        long ttl = 0;
+        boolean nx = false;
+        boolean xx = false;
+        boolean keepTtl = false;
+        for (int i = 2; i < args.size(); i++) {
+            String option = args.get(i).toUpperCase();
+            if ("EX".equals(option)) {
+                ttl = Long.parseLong(args.get(++i)) * 1000;
+            } else if ("PX".equals(option)) {
+                ttl = Long.parseLong(args.get(++i));
+            } else if ("NX".equals(option)) {
+                nx = true;
+            } else if ("XX".equals(option)) {
+                xx = true;
+            } else if ("KEEPTTL".equals(option)) {
+                keepTtl = true;
+            } else {
+                return new ErrorReply("ERR syntax error");
+            }
+        }
+        Entry existing = lookup(db, key);
+        if ((nx && existing != null) || (xx && existing == null)) {
+            return null;
+        }
+        putString(db, key, args.get(1), ttl);
+        if (keepTtl) {
+            keepExpire(db, key, existing);
+        }
+        return OK;
+    }
+
+    private long incrBy(int db, String key, long delta) {
+        String current = string(db, key);
+        long value = (current == null ? 0 : Long.parseLong(current)) + delta;
+        Entry entry = lookup(db, key);
+        putString(db, key, String.valueOf(value), 0);
+        keepExpire(db, key, entry);
+        return value;
+    }
+
+    private long expire(int db, String key, long millis) {
+        Entry entry = lookup(db, key);
+        if (entry == null) {
+            return 0L;
+        }
+        if (millis <= 0) {
+            databases.get(db).remove(key);
+        } else {
+            entry.expireAt = System.currentTimeMillis() + millis;
+        }
+        touch(db, key);
+        return 1L;
+    }
+
+    // ================= Storage =================
+
+    private Entry lookup(int db, String key) {
+        Map<String, Entry> data = databases.get(db);
+        Entry entry = data.get(key);
+        if (entry != null && entry.isExpired()) {
+            data.remove(key);
+            touch(db, key);
+            return null;
+        }
+        return entry;
+    }
+
+    private void purgeExpired(Map<String, Entry> data) {
+        data.values().removeIf(Entry::isExpired);
+    }
+
+    private String string(int db, String key) {
+        Entry entry = lookup(db, key);
+        if (entry == null) {
+            return null;
+        }
+        if (!(entry.value instanceof String)) {
+            throw new WrongTypeException();
+        }
+        return (String) entry.value;
+    }
+
+    private void putString(int db, String key, String value, long ttlMillis) {
+        Entry entry = new Entry(value);
+        if (ttlMillis > 0) {
+            entry.expireAt = System.currentTimeMillis() + ttlMillis;
+        }
+        databases.get(db).put(key, entry);
+        touch(db, key);
+    }
+
+    private void keepExpire(int db, String key, Entry previous) {
+        if (previous != null && previous.expireAt > 0) {
+            databases.get(db).get(key).expireAt = previous.expireAt;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, String> hash(int db, String key, boolean create) {
+        return (Map<String, String>) collection(db, key, Map.class, create ? new LinkedHashMap<String, String>() : null);
+    }
+
+    @SuppressWarnings("unchecked")
+    private Set<String> set(int db, String key, boolean create) {
+        return (Set<String>) collection(db, key, Set.class, create ? new LinkedHashSet<String>() : null);
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<String> list(int db, String key, boolean create) {
+        return (List<String>) collection(db, key, List.class, create ? new ArrayList<String>() : null);
+    }
+
+    /**
+     * 获取指定类型的值，不存在时若提供了empty则创建，否则返回一个只读的空集合
+     */
+    private Object collection(int db, String key, Class<?> type, Object empty) {
+        Entry entry = lookup(db, key);
+        if (entry == null) {
+            if (empty == null) {
+                if (type == Map.class) {
+                    return Collections.emptyMap();
+                }
+                return type == Set.class ? Collections.emptySet() : Collections.emptyList();
+            }
+            databases.get(db).put(key, new Entry(empty));
+            return empty;
+        }
+        if (!type.isInstance(entry.value)) {
+            throw new WrongTypeException();
+        }
+        return entry.value;
+    }
+
+    private GeoSet geo(int db, String key, boolean create) {
+        Entry entry = lookup(db, key);
+        if (entry == null) {
+            GeoSet geo = new GeoSet();
+            if (create) {
+                databases.get(db).put(key, new Entry(geo));
+            }
+            return geo;
+        }
+        if (!(entry.value instanceof GeoSet)) {
+            throw new WrongTypeException();
+        }
+        return (GeoSet) entry.value;
+    }
+
+    private void removeIfEmpty(int db, String key, boolean empty) {
+        if (empty) {
+            databases.get(db).remove(key);
+        }
+    }
+
+    private void touch(int db, String key) {
+        versions.get(db).put(key, ++versionSeq);
+    }
+
+    private long version(int db, String key) {
+        Long version = versions.get(db).get(key);
+        return version == null ? 0L : version;
+    }
+
+    // ================= Helpers =================
+
+    private static int index(long index, int size) {
+        long i = index < 0 ? size + index : index;
+        return (int) Math.max(i, 0);
+    }
+
+    private static String formatDouble(double value) {
+        return BigDecimal.valueOf(value).stripTrailingZeros().toPlainString();
+    }
+
+    /**
+     * 两点间的球面距离(米)，与Redis相同使用haversine公式
+     */
+    private static double distance(double[] from, double[] to) {
+        double lat1 = Math.toRadians(from[1]);
+        double lat2 = Math.toRadians(to[1]);
+        double u = Math.sin((lat2 - lat1) / 2);
+        double v = Math.sin(Math.toRadians(to[0] - from[0]) / 2);
+        return 2.0 * EARTH_RADIUS_IN_METERS * Math.asin(Math.sqrt(u * u + Math.cos(lat1) * Math.cos(lat2) * v * v));
+    }
+
+    /**
+     * @return 单位对应的米数，不支持的单位返回-1
+     */
+    private static double unit(String unit) {
+        switch (unit.toLowerCase()) {
+            case "m":
+                return 1;
+            case "km":
+                return 1000;
+            case "ft":
+                return 0.3048;
+            case "mi":
+                return 1609.34;
+            default:
+                return -1;
+        }
+    }
+
+    private static String formatDistance(double value) {
+        return String.format(Locale.ROOT, "%.4f", value);
+    }
+
+    private static String formatCoordinate(double value) {
+        return BigDecimal.valueOf(value).toPlainString();
+    }
+
+    private static String sha1(String script) {
+        try {
+            StringBuilder hex = new StringBuilder();
+            for (byte b : MessageDigest.getInstance("SHA-1").digest(script.getBytes(StandardCharsets.ISO_8859_1))) {
+                hex.append(String.format("%02x", b));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static Pattern glob(String glob) {
+        StringBuilder regex = new StringBuilder();
+        for (int i = 0; i < glob.length(); i++) {
+            char c = glob.charAt(i);
+            if (c == '*') {
+                regex.append(".*");
+            } else if (c == '?') {
+                regex.append('.');
+            } else if (c == '\\' && i + 1 < glob.length()) {
+                regex.append(Pattern.quote(String.valueOf(glob.charAt(++i))));
+            } else if (c == '[') {
+                int close = glob.indexOf(']', i + 1);
+                if (close < 0) {
+                    regex.append("\\[");
+                } else {
+                    regex.append('[').append(glob, i + 1, close).append(']');
+                    i = close;
+                }
+            } else {
+                regex.append(Pattern.quote(String.valueOf(c)));
+            }
+        }
+        return Pattern.compile(regex.toString(), Pattern.DOTALL);
+    }
+
+    private static void sleep(long millis) {
+        if (millis <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void closeQuietly(Closeable closeable) {
+        try {
+            closeable.close();
+        } catch (IOException ignored) {
+            // ignore
+        }
+    }
+
+    // ================= Types =================
+
+    private static class Entry {
+
+        private final Object value;
+
+        private long expireAt;
+
+        private Entry(Object value) {
+            this.value = value;
+        }
+
+        private boolean isExpired() {
+            return expireAt > 0 && expireAt <= System.currentTimeMillis();
+        }
+
+        private String type() {
+            if (value instanceof String) {
+                return "string";
+            }
+            if (value instanceof Map) {
+                return "hash";
+            }
+            if (value instanceof GeoSet) {
+                return "zset";
+            }
+            return value instanceof Set ? "set" : "list";
+        }
+    }
+
+    private static class Session {
+
+        private boolean authenticated;
+
+        private int db;
+
+        private boolean quit;
+
+        private List<List<String>> multi;
+
+        private final Map<WatchedKey, Long> watched = new HashMap<>();
+
+        private final Set<String> channels = new LinkedHashSet<>();
+
+        private final Map<String, Pattern> patterns = new LinkedHashMap<>();
+
+        private OutputStream out;
+
+        private boolean isSubscribed() {
+            return !channels.isEmpty() || !patterns.isEmpty();
+        }
+
+        private long subscriptionCount() {
+            return channels.size() + patterns.size();
+        }
+
+        /**
+         * 写回复，与PUBLISH推送的消息互斥，避免两者在输出流中交错
+         */
+        private synchronized void write(Object reply) throws IOException {
+            writeReply(out, reply);
+            out.flush();
+        }
+
+        private void push(List<Object> message) {
+            try {
+                write(message);
+            } catch (IOException e) {
+                // 订阅者已断开，由其所在的连接线程清理
+            }
+        }
+    }
+
+    /**
+     * GEO数据，Redis中以zset存储，这里直接保存经纬度
+     */
+    private static class GeoSet {
+
+        private final Map<String, double[]> members = new LinkedHashMap<>();
+    }
+
+    /**
+     * 订阅类命令的回复：每个参数一条独立的推送
+     */
+    private static class Pushes {
+
+        private final List<List<Object>> items = new ArrayList<>();
+
+        private void add(String kind, String target, long count) {
+            items.add(Arrays.asList(kind, target, count));
+        }
+    }
+
+    private static class WatchedKey {
+
+        private final int db;
+
+        private final String key;
+
+        private WatchedKey(int db, String key) {
+            this.db = db;
+            this.key = key;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof WatchedKey)) {
+                return false;
+            }
+            WatchedKey other = (WatchedKey) o;
+            return db == other.db && key.equals(other.key);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * db + key.hashCode();
+        }
+    }
+
+    private static class StatusReply {
+
+        private final String message;
+
+        private StatusReply(String message) {
+            this.message = message;
+        }
+    }
+
+    private static class ErrorReply {
+
+        private final String message;
+
+        private ErrorReply(String message) {
+            this.message = message;
+        }
+    }
+
+    private static class WrongTypeException extends RuntimeException {
+    }
+}
@@ -0,0 +1,49 @@
+package com.heycm.server;
+
+import org.springframework.boot.test.util.TestPropertyValues;
+import org.springframework.context.ApplicationContextInitializer;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * 在Spring容器刷新前启动进程内 {@link RespServer}，并把 spring.redis.host/port 指向它
+ * <p>
+ * 同一JVM中的测试共享一个服务端；使用 -Dredis.embedded=false 可改为连接application.yml中配置的真实Redis。
+ */
+public class RespServerInitializer implements ApplicationContextInitializer<ConfigurableApplicationContext> {
+
+    private static RespServer server;
+
+    /**
+     * @return 共享的服务端，未启用时为null
+     */
+    public static synchronized RespServer server() {
+        return server;
+    }
+
+    @Override
+    public void initialize(ConfigurableApplicationContext context) {
+        if ("false".equals(System.getProperty("redis.embedded"))) {
+            return;
+        }
+        RespServer server = start(context.getEnvironment().getProperty("spring.redis.password"));
+        TestPropertyValues.of(
+                "spring.redis.host=127.0.0.1",
+                "spring.redis.port=" + server.getPort()
+        ).applyTo(context);
+    }
+
+    private static synchronized RespServer start(String password) {
+        if (server == null) {
+            try {
+                server = new RespServer(password).start();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            Runtime.getRuntime().addShutdownHook(new Thread(server::stop, "resp-server-shutdown"));
+        }
+        return server;
+    }
+}
@@ -0,0 +1,71 @@
+package com.heycm.server;
+
+import com.heycm.utils.RedisUtil;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ContextConfiguration;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+@ContextConfiguration(initializers = RespServerInitializer.class)
+public class RespServerTests {
+
+    @Autowired
+    RedisUtil redisUtil;
+
+    RespServer server;
+
+    @BeforeEach
+    public void setUp() {
+        server = RespServerInitializer.server();
+        Assumptions.assumeTrue(server != null, "embedded redis disabled");
+        server.flushAll();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        if (server != null) {
+            server.clearFaults();
+        }
+    }
+
+    @Test
+    public void roundTrip() {
+        assertTrue(redisUtil.set("k", 5L, 10, TimeUnit.SECONDS));
+        assertEquals(Long.valueOf(5), redisUtil.get("k", Long.class));
+        assertTrue(redisUtil.getExpire("k") > 0);
+        assertTrue(redisUtil.hSet("h", "a", "1"));
+        assertEquals("1", redisUtil.hGet("h", "a", String.class));
+        assertEquals(Long.valueOf(2), redisUtil.lRightPushAll("l", "x", "y"));
+        assertEquals(2, redisUtil.lGetAll("l").size());
+        assertTrue(redisUtil.compareAndSet("cas", null, "v1"));
+        assertFalse(redisUtil.compareAndSet("cas", null, "v2"));
+        assertEquals("v1", redisUtil.get("cas"));
+    }
+
+    @Test
+    public void injectedError() {
+        server.failNext(1, RespServer.FailureMode.ERROR);
+        assertFalse(redisUtil.set("k", "v"));
+        assertTrue(redisUtil.set("k", "v"));
+        assertNull(redisUtil.get("missing"));
+    }
+
+    @Test
+    public void injectedLatency() {
+        server.setLatency(50);
+        long start = System.nanoTime();
+        redisUtil.get("k");
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) >= 50);
+    }
+}
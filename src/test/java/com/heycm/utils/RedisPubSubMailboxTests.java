@@ -0,0 +1,139 @@
+package com.heycm.utils;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.heycm.configuration.RedisConfig;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.connection.Message;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 直接测试监听者缓冲，不需要Redis
+ */
+public class RedisPubSubMailboxTests {
+
+    private static final byte[] CHANNEL = "order.created".getBytes(StandardCharsets.UTF_8);
+
+    private final RedisCodec redisCodec = new RedisConfig().redisCodec();
+
+    private final List<Integer> received = Collections.synchronizedList(new ArrayList<>());
+
+    private final List<Runnable> tasks = new ArrayList<>();
+
+    @Test
+    public void perListenerOrdering() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            RedisPubSub.Mailbox<Integer> mailbox = mailbox(executor, 2000, RedisPubSub.OverflowPolicy.DROP_NEWEST);
+            for (int i = 0; i < 1000; i++) {
+                mailbox.onMessage(message(i), null);
+            }
+            long deadline = System.currentTimeMillis() + 5000;
+            while (received.size() < 1000 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            List<Integer> expected = new ArrayList<>();
+            for (int i = 0; i < 1000; i++) {
+                expected.add(i);
+            }
+            assertEquals(expected, received);
+            assertEquals(0, mailbox.getDropped());
+        } finally {
+            executor.shutdownNow();
+            executor.awaitTermination(1, TimeUnit.SECONDS);
+        }
+    }
+
+    @Test
+    public void dropOldest() throws Exception {
+        RedisPubSub.Mailbox<Integer> mailbox = mailbox(tasks::add, 3, RedisPubSub.OverflowPolicy.DROP_OLDEST);
+        for (int i = 0; i < 5; i++) {
+            mailbox.onMessage(message(i), null);
+        }
+        assertEquals(2, mailbox.getDropped());
+        runTasks();
+        assertEquals(Arrays.asList(2, 3, 4), received);
+    }
+
+    @Test
+    public void dropNewest() throws Exception {
+        RedisPubSub.Mailbox<Integer> mailbox = mailbox(tasks::add, 3, RedisPubSub.OverflowPolicy.DROP_NEWEST);
+        for (int i = 0; i < 5; i++) {
+            mailbox.onMessage(message(i), null);
+        }
+        assertEquals(2, mailbox.getDropped());
+        runTasks();
+        assertEquals(Arrays.asList(0, 1, 2), received);
+    }
+
+    @Test
+    public void dropUndecodable() throws Exception {
+        RedisPubSub.Mailbox<Integer> mailbox = mailbox(tasks::add, 10, RedisPubSub.OverflowPolicy.DROP_NEWEST);
+        mailbox.onMessage(new DefaultMessage(CHANNEL, "not json{".getBytes(StandardCharsets.UTF_8)), null);
+        mailbox.onMessage(message(1), null);
+        runTasks();
+        assertEquals(1, mailbox.getDropped());
+        assertEquals(Collections.singletonList(1), received);
+    }
+
+    @Test
+    public void dropWhenExecutorRejects() throws Exception {
+        RedisPubSub.Mailbox<Integer> mailbox = mailbox(task -> {
+            throw new RejectedExecutionException("saturated");
+        }, 10, RedisPubSub.OverflowPolicy.DROP_NEWEST);
+        mailbox.onMessage(message(1), null);
+        mailbox.onMessage(message(2), null);
+        assertEquals(2, mailbox.getDropped());
+        assertEquals(0, mailbox.getPending());
+        assertTrue(received.isEmpty());
+    }
+
+    @Test
+    public void noDeliveryAfterClose() throws Exception {
+        List<RedisPubSub.Mailbox<Integer>> holder = new ArrayList<>();
+        RedisPubSub.Mailbox<Integer> mailbox = new RedisPubSub.Mailbox<>(redisCodec, tasks::add, Integer.class,
+                (channel, message) -> {
+                    received.add(message);
+                    // 在已取出一批消息的消费任务中途取消订阅
+                    holder.get(0).close();
+                }, 10, RedisPubSub.OverflowPolicy.DROP_NEWEST);
+        holder.add(mailbox);
+        for (int i = 0; i < 3; i++) {
+            mailbox.onMessage(message(i), null);
+        }
+        runTasks();
+        mailbox.onMessage(message(3), null);
+        runTasks();
+        assertEquals(Collections.singletonList(0), received);
+        assertEquals(0, mailbox.getPending());
+    }
+
+    private RedisPubSub.Mailbox<Integer> mailbox(Executor executor, int capacity,
+                                                 RedisPubSub.OverflowPolicy policy) {
+        return new RedisPubSub.Mailbox<>(redisCodec, executor, Integer.class,
+                (channel, message) -> received.add(message), capacity, policy);
+    }
+
+    private Message message(int value) throws JsonProcessingException {
+        return new DefaultMessage(CHANNEL, redisCodec.getObjectMapper().writeValueAsBytes(value));
+    }
+
+    private void runTasks() {
+        while (!tasks.isEmpty()) {
+            tasks.remove(0).run();
+        }
+    }
+}
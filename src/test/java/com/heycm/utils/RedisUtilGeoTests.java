@@ -0,0 +1,92 @@
+package com.heycm.utils;
+
+import com.heycm.server.RespServer;
+import com.heycm.server.RespServerInitializer;
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.geo.Distance;
+import org.springframework.data.geo.GeoResult;
+import org.springframework.data.geo.GeoResults;
+import org.springframework.data.geo.Metrics;
+import org.springframework.data.geo.Point;
+import org.springframework.data.redis.connection.RedisGeoCommands.GeoLocation;
+import org.springframework.test.context.ContextConfiguration;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+@SpringBootTest
+@ContextConfiguration(initializers = RespServerInitializer.class)
+public class RedisUtilGeoTests {
+
+    private static final String KEY = "shops";
+
+    @Autowired
+    RedisUtil redisUtil;
+
+    @BeforeEach
+    public void setUp() {
+        RespServer server = RespServerInitializer.server();
+        Assumptions.assumeTrue(server != null, "embedded redis disabled");
+        server.flushAll();
+        Map<Object, Point> shops = new LinkedHashMap<>();
+        shops.put("palermo", new Point(13.361389, 38.115556));
+        shops.put("catania", new Point(15.087269, 37.502669));
+        shops.put("syracuse", new Point(15.286586, 37.075474));
+        shops.put("rome", new Point(12.496366, 41.902782));
+        assertEquals(Long.valueOf(4), redisUtil.geoAdd(KEY, shops));
+    }
+
+    @Test
+    public void batchAdd() {
+        // 已存在的成员只更新坐标，不计入新增个数
+        Map<Object, Point> shops = new LinkedHashMap<>();
+        shops.put("rome", new Point(12.5, 41.9));
+        shops.put("naples", new Point(14.268124, 40.851775));
+        assertEquals(Long.valueOf(1), redisUtil.geoAdd(KEY, shops));
+        assertEquals(Long.valueOf(1), redisUtil.geoAdd(KEY, 9.189982, 45.464204, "milan"));
+        assertEquals(12.5, redisUtil.geoPos(KEY, "rome").get(0).getX(), 1e-6);
+    }
+
+    @Test
+    public void nearestFirst() {
+        GeoResults<GeoLocation<Object>> results = redisUtil.geoRadius(KEY, 15, 37, 300, 2);
+        assertNotNull(results);
+        List<Object> names = new ArrayList<>();
+        for (GeoResult<GeoLocation<Object>> result : results) {
+            names.add(result.getContent().getName());
+        }
+        assertEquals(Arrays.asList("syracuse", "catania"), names);
+        GeoResult<GeoLocation<Object>> nearest = results.getContent().get(0);
+        assertEquals(Metrics.KILOMETERS, nearest.getDistance().getMetric());
+        assertEquals(15.286586, nearest.getContent().getPoint().getX(), 1e-6);
+        assertEquals(37.075474, nearest.getContent().getPoint().getY(), 1e-6);
+        assertEquals(1, redisUtil.geoRadiusByMember(KEY, "palermo", 1, Metrics.KILOMETERS, 10).getContent().size());
+    }
+
+    @Test
+    public void missingMember() {
+        List<Point> points = redisUtil.geoPos(KEY, "catania", "venice");
+        assertEquals(2, points.size());
+        assertEquals(15.087269, points.get(0).getX(), 1e-6);
+        assertNull(points.get(1));
+        assertNull(redisUtil.geoDist(KEY, "catania", "venice"));
+    }
+
+    @Test
+    public void distance() {
+        Distance distance = redisUtil.geoDist(KEY, "palermo", "catania");
+        assertEquals(166.27, distance.getValue(), 0.01);
+        assertEquals(Metrics.KILOMETERS, distance.getMetric());
+    }
+}
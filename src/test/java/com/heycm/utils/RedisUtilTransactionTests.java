@@ -0,0 +1,117 @@
+package com.heycm.utils;
+
+import com.heycm.server.RespServer;
+import com.heycm.server.RespServerInitializer;
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.test.context.ContextConfiguration;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+@ContextConfiguration(initializers = RespServerInitializer.class)
+public class RedisUtilTransactionTests {
+
+    @Autowired
+    RedisUtil redisUtil;
+
+    @BeforeEach
+    public void setUp() {
+        RespServer server = RespServerInitializer.server();
+        Assumptions.assumeTrue(server != null, "embedded redis disabled");
+        server.flushAll();
+    }
+
+    @Test
+    public void retryOnConflict() {
+        redisUtil.set("counter", 1L);
+        AtomicInteger attempts = new AtomicInteger();
+        Long result = redisUtil.optimistic(Collections.singletonList("counter"), tx -> {
+            if (attempts.incrementAndGet() == 1) {
+                // 模拟另一个客户端在WATCH之后修改了键
+                redisUtil.set("counter", 10L);
+            }
+            long next = ((Number) tx.get("counter")).longValue() + 1;
+            tx.set("counter", next);
+            return next;
+        });
+        assertEquals(2, attempts.get());
+        assertEquals(Long.valueOf(11), result);
+        assertEquals(Long.valueOf(11), redisUtil.get("counter", Long.class));
+    }
+
+    @Test
+    public void exhaustedAttempts() {
+        redisUtil.set("counter", 1L);
+        AtomicInteger attempts = new AtomicInteger();
+        assertThrows(OptimisticLockingFailureException.class, () ->
+                redisUtil.optimistic(Collections.singletonList("counter"), 3, tx -> {
+                    redisUtil.set("counter", attempts.incrementAndGet());
+                    tx.set("counter", 0L);
+                    return null;
+                }));
+        assertEquals(3, attempts.get());
+        assertEquals(Long.valueOf(3), redisUtil.get("counter", Long.class));
+    }
+
+    @Test
+    public void compareAndSetLong() {
+        redisUtil.set("cas", 5L);
+        assertTrue(redisUtil.compareAndSet("cas", 5L, 6L));
+        assertFalse(redisUtil.compareAndSet("cas", 5L, 7L));
+        assertEquals(Long.valueOf(6), redisUtil.get("cas", Long.class));
+    }
+
+    @Test
+    public void hCompareAndSetVersionMismatch() {
+        Map<String, Object> init = new HashMap<>();
+        init.put("name", "a");
+        init.put("version", 3);
+        redisUtil.hmSet("h", init);
+
+        Map<String, Object> update = Collections.singletonMap("name", "b");
+        assertFalse(redisUtil.hCompareAndSet("h", update, 2));
+        assertEquals("a", redisUtil.hGet("h", "name", String.class));
+        assertEquals(Long.valueOf(3), redisUtil.hGet("h", "version", Long.class));
+
+        assertTrue(redisUtil.hCompareAndSet("h", update, 3));
+        assertEquals("b", redisUtil.hGet("h", "name", String.class));
+        assertEquals(Long.valueOf(4), redisUtil.hGet("h", "version", Long.class));
+    }
+
+    @Test
+    public void noOpWritesAreNotConflicts() {
+        redisUtil.set("counter", 1L);
+        AtomicInteger attempts = new AtomicInteger();
+        Boolean result = redisUtil.optimistic(Collections.singletonList("counter"), tx -> {
+            attempts.incrementAndGet();
+            tx.hmSet("h", Collections.emptyMap());
+            tx.sSet("s");
+            tx.hDel("h");
+            return true;
+        });
+        assertTrue(result);
+        assertEquals(1, attempts.get());
+    }
+
+    @Test
+    public void emptyKeysRejected() {
+        assertThrows(IllegalArgumentException.class, () ->
+                redisUtil.optimistic(Collections.emptyList(), tx -> {
+                    tx.set("counter", 1L);
+                    return null;
+                }));
+    }
+}
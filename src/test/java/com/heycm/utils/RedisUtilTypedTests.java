@@ -0,0 +1,130 @@
+package com.heycm.utils;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.heycm.server.RespServer;
+import com.heycm.server.RespServerInitializer;
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ContextConfiguration;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+@ContextConfiguration(initializers = RespServerInitializer.class)
+public class RedisUtilTypedTests {
+
+    @Autowired
+    RedisUtil redisUtil;
+
+    @BeforeEach
+    public void setUp() {
+        RespServer server = RespServerInitializer.server();
+        Assumptions.assumeTrue(server != null, "embedded redis disabled");
+        server.flushAll();
+    }
+
+    @Test
+    public void pojo() {
+        Order order = new Order("o-1", "keyboard", 2);
+        redisUtil.set("order:o-1", order);
+        assertEquals(order, redisUtil.get("order:o-1", Order.class));
+
+        RedisValue<Order> orders = redisUtil.value("order:", Order.class);
+        orders.set("o-2", new Order("o-2", "mouse", 1));
+        assertEquals(new Order("o-2", "mouse", 1), orders.get("o-2"));
+        assertEquals(Arrays.asList(order, new Order("o-2", "mouse", 1)),
+                redisUtil.mGet(Arrays.asList("order:o-1", "order:o-2"), Order.class));
+    }
+
+    @Test
+    public void genericList() {
+        // default typing 无法还原 Arrays.asList 的内部类型，使用ArrayList存储
+        List<Order> orders = new ArrayList<>(Arrays.asList(new Order("o-1", "keyboard", 2), new Order("o-2", "mouse", 1)));
+        redisUtil.set("orders", orders);
+        List<Order> read = redisUtil.get("orders", new TypeReference<List<Order>>() {});
+        assertEquals(orders, read);
+
+        redisUtil.lRightPush("batches", orders);
+        redisUtil.lRightPush("batches", new ArrayList<>(Collections.singletonList(new Order("o-3", "monitor", 1))));
+        List<List<Order>> batches = redisUtil.lRange("batches", new TypeReference<List<Order>>() {});
+        assertEquals(2, batches.size());
+        assertEquals(orders, batches.get(0));
+        assertEquals(new Order("o-3", "monitor", 1), batches.get(1).get(0));
+        assertEquals(Collections.singletonList(orders), redisUtil.lRange("batches", 0, 0, new TypeReference<List<Order>>() {}));
+    }
+
+    @Test
+    public void hash() {
+        RedisHash<Order> carts = redisUtil.hash("cart:", Order.class);
+        Map<String, Order> items = new LinkedHashMap<>();
+        items.put("o-1", new Order("o-1", "keyboard", 2));
+        items.put("o-2", new Order("o-2", "mouse", 1));
+        carts.putAll(7, items);
+        assertEquals(items, carts.getAll(7));
+        assertEquals(new Order("o-2", "mouse", 1), carts.get(7, "o-2"));
+        assertEquals(items, redisUtil.hGetAll("cart:7", Order.class));
+    }
+
+    @Test
+    public void missingKey() {
+        assertNull(redisUtil.get("order:none", Order.class));
+        assertNull(redisUtil.get("orders:none", new TypeReference<List<Order>>() {}));
+        assertNull(redisUtil.value("order:", Order.class).get("none"));
+        assertNull(redisUtil.hash("cart:", Order.class).get(7, "none"));
+        assertTrue(redisUtil.hash("cart:", Order.class).getAll("none").isEmpty());
+        assertTrue(redisUtil.lRange("batches:none", new TypeReference<List<Order>>() {}).isEmpty());
+    }
+
+    public static class Order {
+
+        private String id;
+
+        private String product;
+
+        private int quantity;
+
+        public Order() {
+        }
+
+        public Order(String id, String product, int quantity) {
+            this.id = id;
+            this.product = product;
+            this.quantity = quantity;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Order)) {
+                return false;
+            }
+            Order order = (Order) o;
+            return quantity == order.quantity && Objects.equals(id, order.id) && Objects.equals(product, order.product);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(id, product, quantity);
+        }
+
+        @Override
+        public String toString() {
+            return "Order{" + id + ", " + product + ", " + quantity + "}";
+        }
+    }
+}